@@ -109,6 +109,8 @@ dependencies {
     // Retrofit pour API (si besoin d'API avancées)
     implementation("com.squareup.retrofit2:retrofit:2.9.0")
     implementation("com.squareup.retrofit2:converter-gson:2.9.0")
+    // Client HTTP partagé (version tirée par Retrofit 2.9.0, utilisée directement)
+    implementation("com.squareup.okhttp3:okhttp:3.14.9")
 
     // Kotlin coroutines (utile pour opérations asynchrones)
     implementation("org.jetbrains.kotlinx:kotlinx-coroutines-android:1.7.3")
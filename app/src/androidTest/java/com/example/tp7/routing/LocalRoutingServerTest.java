@@ -0,0 +1,116 @@
+package com.example.tp7.routing;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.tp7.DirectionsHelper;
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fournisseurs OSRM et Nominatim branchés sur LocalRoutingServer (réponses enregistrées
+ * de la variante debug) : parsing de bout en bout, puis mesure de latence et de débit
+ * reproductible, sans dépendre des serveurs publics
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocalRoutingServerTest {
+
+    private static final String TAG = "LocalRoutingServerTest";
+
+    private static final LatLng ORIGIN = new LatLng(48.85837, 2.294481);
+    private static final LatLng DESTINATION = new LatLng(48.8591, 2.30518);
+
+    private static final long LATENCY_MILLIS = 50;
+    private static final int REQUESTS = 20;
+    private static final int PARALLEL_CLIENTS = 4;
+
+    private LocalRoutingServer server;
+
+    @Before
+    public void startServer() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        server = new LocalRoutingServer(context.getAssets());
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void osrmProviderParsesRecordedRoute() throws Exception {
+        OsrmRoutingProvider provider = new OsrmRoutingProvider(server.getBaseUrl(), "driving");
+
+        DirectionsHelper.RouteInfo route = provider.getRoute(ORIGIN, DESTINATION, new RequestContext());
+
+        assertNotNull(route);
+        assertEquals(10, route.geometry.size());
+        assertEquals(1099.3, route.distanceMeters, 0.01);
+        assertEquals(132.4, route.durationSeconds, 0.01);
+        assertFalse(route.steps.isEmpty());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void nominatimProviderParsesRecordedSearch() throws Exception {
+        NominatimGeocodingProvider provider = new NominatimGeocodingProvider(server.getBaseUrl());
+
+        LatLng location = provider.geocode("Tour Eiffel", new RequestContext());
+
+        assertNotNull(location);
+        assertEquals(48.8582599, location.latitude, 1e-7);
+        assertEquals(2.2945006, location.longitude, 1e-7);
+    }
+
+    @Test
+    public void measuresLatencyAndThroughput() throws Exception {
+        server.setLatency(LATENCY_MILLIS, 0);
+        OsrmRoutingProvider provider = new OsrmRoutingProvider(server.getBaseUrl(), "driving");
+
+        // Requêtes successives : latence par requête (connexion réutilisée)
+        long start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < REQUESTS; i++) {
+            assertNotNull(provider.getRoute(ORIGIN, DESTINATION, new RequestContext()));
+        }
+        long sequential = SystemClock.elapsedRealtime() - start;
+        assertTrue("Latence simulée non appliquée", sequential >= REQUESTS * LATENCY_MILLIS);
+
+        // Requêtes parallèles : débit
+        ExecutorService clients = Executors.newFixedThreadPool(PARALLEL_CLIENTS);
+        try {
+            List<Future<DirectionsHelper.RouteInfo>> results = new ArrayList<>();
+            start = SystemClock.elapsedRealtime();
+            for (int i = 0; i < REQUESTS; i++) {
+                results.add(clients.submit(() -> provider.getRoute(ORIGIN, DESTINATION, new RequestContext())));
+            }
+            for (Future<DirectionsHelper.RouteInfo> result : results) {
+                assertNotNull(result.get());
+            }
+            long parallel = SystemClock.elapsedRealtime() - start;
+
+            Log.i(TAG, "Séquentiel : " + (sequential / REQUESTS) + " ms/requête, parallèle ("
+                    + PARALLEL_CLIENTS + " clients) : " + (REQUESTS * 1000L / Math.max(parallel, 1))
+                    + " requêtes/s");
+        } finally {
+            clients.shutdownNow();
+        }
+        assertEquals(2 * REQUESTS, server.getRequestCount());
+    }
+}
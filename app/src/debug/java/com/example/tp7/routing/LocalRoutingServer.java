@@ -0,0 +1,309 @@
+package com.example.tp7.routing;
+
+import android.content.res.AssetManager;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serveur HTTP local qui rejoue des réponses OSRM / Nominatim enregistrées
+ * Sert de remplaçant reproductible aux serveurs publics pour les tests de
+ * latence et de débit (latence simulée réglable, connexions keep-alive)
+ *
+ * Variante debug uniquement, comme ses réponses et l'autorisation du HTTP en clair
+ * Les réponses sont lues dans les assets (par défaut "routing/") et choisies selon
+ * le préfixe du chemin demandé (voir LocalRoutingServerTest, dans androidTest) :
+ *
+ *   LocalRoutingServer server = new LocalRoutingServer(context.getAssets());
+ *   server.setLatency(80, 40);
+ *   server.start();
+ *   DirectionsHelper.setRoutingProvider(new OsrmRoutingProvider(server.getBaseUrl(), "driving"));
+ *   DirectionsHelper.setGeocodingProvider(new NominatimGeocodingProvider(server.getBaseUrl()));
+ */
+public class LocalRoutingServer {
+
+    private static final String TAG = "LocalRoutingServer";
+
+    public static final String DEFAULT_ASSET_DIR = "routing";
+    private static final int WORKER_THREADS = 4;
+    private static final int MAX_HEADER_LINE = 8192;
+
+    private final AssetManager assets;
+    private final String assetDir;
+    // Préfixe de chemin -> nom de l'asset à renvoyer
+    private final Map<String, String> routes = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> responseCache = new ConcurrentHashMap<>();
+    private final Random random = new Random();
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private volatile long latencyMillis;
+    private volatile long jitterMillis;
+
+    private ServerSocket serverSocket;
+    private ExecutorService workers;
+    private Thread acceptThread;
+
+    public LocalRoutingServer(AssetManager assets) {
+        this(assets, DEFAULT_ASSET_DIR);
+    }
+
+    public LocalRoutingServer(AssetManager assets, String assetDir) {
+        this.assets = assets;
+        this.assetDir = assetDir;
+        route("/route/", "osrm_route.json");
+        route("/search", "nominatim_search.json");
+    }
+
+    /**
+     * Associe un préfixe de chemin à une réponse enregistrée
+     */
+    public void route(String pathPrefix, String assetName) {
+        routes.put(pathPrefix, assetName);
+    }
+
+    /**
+     * Latence simulée avant chaque réponse : fixe + aléa uniforme dans [0, jitter]
+     */
+    public void setLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = Math.max(0, latencyMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+    }
+
+    /**
+     * Démarre sur un port libre de l'interface locale
+     */
+    public synchronized void start() throws IOException {
+        start(0);
+    }
+
+    public synchronized void start(int port) throws IOException {
+        if (serverSocket != null) {
+            return;
+        }
+        serverSocket = new ServerSocket(port, 50, InetAddress.getByName("127.0.0.1"));
+        workers = Executors.newFixedThreadPool(WORKER_THREADS);
+        acceptThread = new Thread(this::acceptLoop, "local-routing-server");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        Log.d(TAG, "Listening on " + getBaseUrl());
+    }
+
+    public synchronized void stop() {
+        if (serverSocket == null) {
+            return;
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Error closing server socket", e);
+        }
+        workers.shutdownNow();
+        serverSocket = null;
+        workers = null;
+        acceptThread = null;
+    }
+
+    /**
+     * URL de base à donner aux fournisseurs (ex : "http://127.0.0.1:41234/")
+     */
+    public synchronized String getBaseUrl() {
+        if (serverSocket == null) {
+            throw new IllegalStateException("Serveur non démarré");
+        }
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/";
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    // ==================== Traitement des connexions ====================
+
+    private void acceptLoop() {
+        ServerSocket socket = serverSocket;
+        ExecutorService pool = workers;
+        while (socket != null && !socket.isClosed()) {
+            try {
+                Socket client = socket.accept();
+                pool.execute(() -> handleConnection(client));
+            } catch (SocketException e) {
+                // Serveur arrêté
+                return;
+            } catch (Exception e) {
+                Log.w(TAG, "Accept failed", e);
+            }
+        }
+    }
+
+    /**
+     * Sert les requêtes d'une connexion jusqu'à sa fermeture (keep-alive)
+     */
+    private void handleConnection(Socket socket) {
+        try (Socket client = socket;
+             InputStream in = new BufferedInputStream(client.getInputStream());
+             OutputStream out = client.getOutputStream()) {
+            while (true) {
+                String requestLine = readLine(in);
+                if (requestLine == null || requestLine.isEmpty()) {
+                    return;
+                }
+
+                boolean keepAlive = true;
+                String header;
+                while ((header = readLine(in)) != null && !header.isEmpty()) {
+                    String lower = header.toLowerCase(Locale.ROOT);
+                    if (lower.startsWith("connection:") && lower.contains("close")) {
+                        keepAlive = false;
+                    }
+                }
+
+                requestCount.incrementAndGet();
+                respond(out, requestLine, keepAlive);
+                if (!keepAlive || header == null) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // Connexion fermée par le client
+        }
+    }
+
+    private void respond(OutputStream out, String requestLine, boolean keepAlive) throws IOException {
+        String[] parts = requestLine.split(" ");
+        String method = parts[0];
+        String path = parts.length > 1 ? parts[1] : "/";
+
+        byte[] body = null;
+        int status = 404;
+        if (!"GET".equals(method)) {
+            status = 405;
+        } else {
+            String asset = findAsset(path);
+            if (asset != null) {
+                body = loadResponse(asset);
+                status = body != null ? 200 : 500;
+            }
+        }
+        if (body == null) {
+            body = new byte[0];
+        }
+
+        simulateLatency();
+
+        String head = "HTTP/1.1 " + status + " " + reason(status) + "\r\n" +
+                "Content-Type: application/json; charset=utf-8\r\n" +
+                "Content-Length: " + body.length + "\r\n" +
+                "Connection: " + (keepAlive ? "keep-alive" : "close") + "\r\n" +
+                "\r\n";
+        out.write(head.getBytes(StandardCharsets.ISO_8859_1));
+        out.write(body);
+        out.flush();
+    }
+
+    private String findAsset(String path) {
+        String best = null;
+        int bestLength = -1;
+        for (Map.Entry<String, String> route : routes.entrySet()) {
+            String prefix = route.getKey();
+            if (path.startsWith(prefix) && prefix.length() > bestLength) {
+                best = route.getValue();
+                bestLength = prefix.length();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Réponse enregistrée, lue une seule fois puis gardée en mémoire
+     */
+    private byte[] loadResponse(String asset) {
+        byte[] cached = responseCache.get(asset);
+        if (cached != null) {
+            return cached;
+        }
+
+        try (InputStream in = assets.open(assetDir + "/" + asset)) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            byte[] data = buffer.toByteArray();
+            responseCache.put(asset, data);
+            return data;
+        } catch (IOException e) {
+            Log.e(TAG, "Missing recorded response " + asset, e);
+            return null;
+        }
+    }
+
+    private void simulateLatency() {
+        long delay = latencyMillis;
+        long jitter = jitterMillis;
+        if (jitter > 0) {
+            synchronized (random) {
+                delay += (long) (random.nextDouble() * jitter);
+            }
+        }
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Lit une ligne terminée par CRLF (null en fin de flux)
+     */
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            if (line.length() >= MAX_HEADER_LINE) {
+                throw new IOException("Ligne d'en-tête trop longue");
+            }
+            line.append((char) c);
+        }
+        return line.length() > 0 ? line.toString() : null;
+    }
+
+    private static String reason(int status) {
+        switch (status) {
+            case 200:
+                return "OK";
+            case 404:
+                return "Not Found";
+            case 405:
+                return "Method Not Allowed";
+            default:
+                return "Internal Server Error";
+        }
+    }
+}
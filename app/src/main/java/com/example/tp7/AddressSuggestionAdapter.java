@@ -0,0 +1,74 @@
+package com.example.tp7;
+
+import android.content.Context;
+import android.widget.ArrayAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+
+import com.example.tp7.offline.OfflineGeocoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Suggestions d'adresses pour les champs de saisie (AutoCompleteTextView)
+ * Le filtrage s'exécute sur le thread du Filter et n'interroge que l'index
+ * hors ligne : aucune requête réseau à chaque frappe
+ */
+public class AddressSuggestionAdapter extends ArrayAdapter<OfflineGeocoder.Suggestion> implements Filterable {
+
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final List<OfflineGeocoder.Suggestion> suggestions = new ArrayList<>();
+
+    private final Filter filter = new Filter() {
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            FilterResults results = new FilterResults();
+            List<OfflineGeocoder.Suggestion> found = constraint != null
+                    ? DirectionsHelper.suggestAddresses(constraint.toString(), MAX_SUGGESTIONS)
+                    : new ArrayList<>();
+            results.values = found;
+            results.count = found.size();
+            return results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            suggestions.clear();
+            if (results != null && results.values != null) {
+                suggestions.addAll((List<OfflineGeocoder.Suggestion>) results.values);
+            }
+            if (suggestions.isEmpty()) {
+                notifyDataSetInvalidated();
+            } else {
+                notifyDataSetChanged();
+            }
+        }
+
+        @Override
+        public CharSequence convertResultToString(Object resultValue) {
+            return ((OfflineGeocoder.Suggestion) resultValue).name;
+        }
+    };
+
+    public AddressSuggestionAdapter(Context context) {
+        super(context, android.R.layout.simple_dropdown_item_1line);
+    }
+
+    @Override
+    public int getCount() {
+        return suggestions.size();
+    }
+
+    @Override
+    public OfflineGeocoder.Suggestion getItem(int position) {
+        return suggestions.get(position);
+    }
+
+    @Override
+    public Filter getFilter() {
+        return filter;
+    }
+}
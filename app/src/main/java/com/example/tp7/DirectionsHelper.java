@@ -1,28 +1,56 @@
 package com.example.tp7;
 
-import android.os.AsyncTask;
+import android.content.Context;
+import android.os.SystemClock;
 import android.util.Log;
 
+import com.example.tp7.offline.OfflineGeocoder;
+import com.example.tp7.offline.OfflineRoutingProvider;
+import com.example.tp7.offline.RegionFile;
+import com.example.tp7.route.RouteDistanceTable;
+import com.example.tp7.route.RouteGeometry;
+import com.example.tp7.routing.GeocodeCache;
+import com.example.tp7.routing.GeocodingProvider;
+import com.example.tp7.routing.NominatimGeocodingProvider;
+import com.example.tp7.routing.OsrmRoutingProvider;
+import com.example.tp7.routing.RequestContext;
+import com.example.tp7.routing.RouteCache;
+import com.example.tp7.routing.RoutingException;
+import com.example.tp7.routing.RoutingExecutors;
+import com.example.tp7.routing.RoutingProvider;
 import com.google.android.gms.maps.model.LatLng;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLEncoder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 public class DirectionsHelper {
 
     private static final String TAG = "DirectionsHelper";
-    // API GRATUITE : OSRM (Open Source Routing Machine)
-    private static final String OSRM_API_URL = "https://router.project-osrm.org/route/v1/driving/";
-    // API GRATUITE : Nominatim pour géocodage
-    private static final String NOMINATIM_API_URL = "https://nominatim.openstreetmap.org/search";
+
+    // Fournisseurs par défaut : API GRATUITES OSRM (routage) et Nominatim (géocodage)
+    private static volatile RoutingProvider routingProvider = new OsrmRoutingProvider();
+    private static volatile GeocodingProvider geocodingProvider = new NominatimGeocodingProvider();
+    // Routage sur l'appareil, essayé en premier si une région est chargée (null sinon)
+    private static volatile RoutingProvider offlineRoutingProvider;
+    // Index d'adresses de la région, essayé avant le géocodage en ligne (null sinon)
+    private static volatile OfflineGeocoder offlineGeocoder;
+
+    // Dernière requête lancée (annulée par la suivante)
+    private static DirectionsTask currentRequest;
+
+    // Caches des géocodages et des itinéraires (null tant que init() n'a pas été appelé)
+    private static volatile GeocodeCache geocodeCache;
+    private static volatile RouteCache routeCache;
 
     public interface DirectionsCallback {
         void onDirectionsReceived(RouteInfo routeInfo);
@@ -30,26 +58,227 @@ public class DirectionsHelper {
     }
 
     public static class RouteInfo {
+        // Géométrie compacte (tableaux primitifs), à utiliser dans les calculs
+        public RouteGeometry geometry;
+        // Vue List<LatLng> de la géométrie (pour l'API Google Maps)
         public List<LatLng> points;
         public String distance;
         public String duration;
+        // Valeurs brutes OSRM (mètres, secondes)
+        public double distanceMeters;
+        public double durationSeconds;
         public List<String> steps;
+        // Index (dans points) du début de chaque étape, null si inconnu
+        public int[] stepStartIndices;
+        // Durée des étapes du calcul (null si non mesurée)
+        public RouteTimings timings;
+
+        // Distances cumulées, calculées à la première demande ou lues avec la route
+        private RouteDistanceTable distanceTable;
 
         public RouteInfo() {
-            points = new ArrayList<>();
+            setGeometry(RouteGeometry.EMPTY);
             steps = new ArrayList<>();
         }
+
+        public void setGeometry(RouteGeometry geometry) {
+            this.geometry = geometry;
+            this.points = geometry.asLatLngList();
+            this.distanceTable = null;
+        }
+
+        /**
+         * Distances cumulées le long de la géométrie (calculées une seule fois)
+         */
+        public synchronized RouteDistanceTable getDistanceTable() {
+            if (distanceTable == null) {
+                distanceTable = new RouteDistanceTable(geometry);
+            }
+            return distanceTable;
+        }
+
+        /**
+         * Fournit des distances déjà connues (route décodée), évitant leur recalcul
+         */
+        public synchronized void setDistanceTable(RouteDistanceTable distanceTable) {
+            this.distanceTable = distanceTable;
+        }
+    }
+
+    /**
+     * Durées (ms) des étapes d'un calcul d'itinéraire
+     */
+    public static class RouteTimings {
+        // Recherches Nominatim (0 si coordonnées saisies directement)
+        public long originGeocodeMillis;
+        public long destinationGeocodeMillis;
+        // Étape de géocodage complète (recherches en parallèle)
+        public long geocodeMillis;
+        // Requête OSRM et parsing, ou lecture du cache
+        public long routeMillis;
+        public long totalMillis;
+        // Itinéraire lu dans le cache disque (aucun accès réseau)
+        public boolean routeFromCache;
+
+        @Override
+        public String toString() {
+            return "geocode=" + geocodeMillis + " ms (origin=" + originGeocodeMillis +
+                    ", destination=" + destinationGeocodeMillis + "), route=" + routeMillis +
+                    " ms" + (routeFromCache ? " (cache)" : "") + ", total=" + totalMillis + " ms";
+        }
+    }
+
+    /**
+     * Initialise les caches persistants (à appeler au démarrage de l'application)
+     */
+    public static void init(Context context) {
+        synchronized (DirectionsHelper.class) {
+            if (geocodeCache == null) {
+                geocodeCache = new GeocodeCache(context.getApplicationContext());
+            }
+            if (routeCache == null) {
+                routeCache = new RouteCache(new File(context.getCacheDir(), "routes"));
+            }
+        }
+
+        // Région hors ligne téléchargée : ouverte en arrière-plan (mapping du fichier)
+        File region = new File(new File(context.getFilesDir(), "offline"), "region.rgn");
+        if (offlineRoutingProvider == null && region.exists()) {
+            try {
+                RoutingExecutors.geocoding().execute(() -> loadOfflineRegion(region));
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "Offline region not loaded", e);
+            }
+        }
+    }
+
+    /**
+     * Charge une région hors ligne (fichier produit par chtool) : routage et
+     * index d'adresses selon les sections présentes
+     * @return true si la région est utilisable
+     */
+    public static boolean loadOfflineRegion(File regionFile) {
+        try {
+            RegionFile region = RegionFile.open(regionFile);
+            if (region.hasSection(RegionFile.SECTION_GRAPH)) {
+                offlineRoutingProvider = OfflineRoutingProvider.open(region);
+            }
+            ByteBuffer addresses = region.getSection(RegionFile.SECTION_ADDRESSES);
+            if (addresses != null) {
+                offlineGeocoder = new OfflineGeocoder(addresses);
+            }
+            Log.d(TAG, "Offline region loaded: " + regionFile);
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open offline region " + regionFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * Source d'itinéraires essayée avant le fournisseur en ligne (null : désactivé)
+     */
+    public static void setOfflineRoutingProvider(RoutingProvider provider) {
+        offlineRoutingProvider = provider;
+    }
+
+    public static RoutingProvider getOfflineRoutingProvider() {
+        return offlineRoutingProvider;
+    }
+
+    /**
+     * Index d'adresses essayé avant le fournisseur de géocodage (null : désactivé)
+     */
+    public static void setOfflineGeocoder(OfflineGeocoder geocoder) {
+        offlineGeocoder = geocoder;
+    }
+
+    /**
+     * Suggestions d'adresses pour une saisie partielle (index hors ligne uniquement,
+     * liste vide sans région chargée) ; aucun accès réseau
+     */
+    public static List<OfflineGeocoder.Suggestion> suggestAddresses(String prefix, int limit) {
+        OfflineGeocoder geocoder = offlineGeocoder;
+        if (geocoder == null) {
+            return Collections.emptyList();
+        }
+        return geocoder.suggest(prefix, limit);
+    }
+
+    /**
+     * Cache disque des itinéraires (null avant init()), pour régler la grille ou le vider
+     */
+    public static RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    /**
+     * Remplace la source d'itinéraires (ex : new OsrmRoutingProvider("https://osrm.interne/", "driving"))
+     */
+    public static void setRoutingProvider(RoutingProvider provider) {
+        routingProvider = provider;
+    }
+
+    public static RoutingProvider getRoutingProvider() {
+        return routingProvider;
+    }
+
+    /**
+     * Remplace la source de géocodage
+     */
+    public static void setGeocodingProvider(GeocodingProvider provider) {
+        geocodingProvider = provider;
+    }
+
+    public static GeocodingProvider getGeocodingProvider() {
+        return geocodingProvider;
+    }
+
+    /**
+     * Calcule un itinéraire en arrière-plan ; le callback est appelé sur le thread principal
+     * Une nouvelle requête annule celle encore en cours
+     * @return Requête annulable (aucun callback n'est appelé après cancel())
+     */
+    public static RouteRequest getDirections(String origin, String destination, DirectionsCallback callback) {
+        DirectionsTask task = new DirectionsTask(origin, destination, callback);
+
+        synchronized (DirectionsHelper.class) {
+            if (currentRequest != null) {
+                currentRequest.cancel();
+            }
+            currentRequest = task;
+        }
+
+        try {
+            task.future = RoutingExecutors.routing().submit(task);
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Routing executor saturated", e);
+            task.errorMessage = "Trop de requêtes en cours";
+            RoutingExecutors.postToMain(() -> task.deliver(null));
+        }
+        return task;
     }
 
-    public static void getDirections(String origin, String destination, DirectionsCallback callback) {
-        new DirectionsTask(origin, destination, callback).execute();
+    /**
+     * Requête d'itinéraire en cours
+     */
+    public interface RouteRequest {
+        void cancel();
+        boolean isCancelled();
     }
 
-    private static class DirectionsTask extends AsyncTask<Void, Void, RouteInfo> {
-        private String origin;
-        private String destination;
-        private DirectionsCallback callback;
-        private String errorMessage;
+    private static class DirectionsTask implements Runnable, RouteRequest {
+        private final String origin;
+        private final String destination;
+        private final DirectionsCallback callback;
+        private volatile String errorMessage;
+
+        private final RouteTimings timings = new RouteTimings();
+
+        // Annulation partagée avec les fournisseurs (appels HTTP en cours)
+        private final RequestContext request = new RequestContext();
+        private volatile Future<?> future;
+        private final List<Future<LatLng>> geocodeLookups = new CopyOnWriteArrayList<>();
 
         DirectionsTask(String origin, String destination, DirectionsCallback callback) {
             this.origin = origin;
@@ -58,36 +287,130 @@ public class DirectionsHelper {
         }
 
         @Override
-        protected RouteInfo doInBackground(Void... voids) {
-            try {
-                // Étape 1 : Géocoder l'origine et la destination si ce sont des adresses
-                LatLng originLatLng = parseCoordinates(origin);
-                if (originLatLng == null) {
-                    originLatLng = geocodeAddress(origin);
+        public void cancel() {
+            request.cancel();
+            Future<?> pending = future;
+            if (pending != null) {
+                pending.cancel(true);
+            }
+            for (Future<LatLng> lookup : geocodeLookups) {
+                lookup.cancel(true);
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return request.isCancelled();
+        }
+
+        @Override
+        public void run() {
+            RouteInfo routeInfo = computeRoute();
+            if (!isCancelled()) {
+                RoutingExecutors.postToMain(() -> deliver(routeInfo));
+            }
+        }
+
+        /**
+         * Remet le résultat sur le thread principal (ignoré si la requête a été annulée entre-temps)
+         */
+        void deliver(RouteInfo routeInfo) {
+            synchronized (DirectionsHelper.class) {
+                if (currentRequest == this) {
+                    currentRequest = null;
                 }
-                LatLng destLatLng = parseCoordinates(destination);
-                if (destLatLng == null) {
-                    destLatLng = geocodeAddress(destination);
+            }
+            if (isCancelled() || callback == null) {
+                return;
+            }
+            if (routeInfo != null) {
+                callback.onDirectionsReceived(routeInfo);
+            } else {
+                callback.onDirectionsError(errorMessage != null ? errorMessage : "Impossible de calculer l'itinéraire");
+            }
+        }
+
+        private RouteInfo computeRoute() {
+            try {
+                long start = SystemClock.elapsedRealtime();
+
+                // Étape 1 : Géocoder l'origine et la destination en parallèle si ce sont des adresses
+                Future<LatLng> originLookup = startGeocode(origin, true);
+                Future<LatLng> destinationLookup = startGeocode(destination, false);
+                LatLng originLatLng = originLookup.get();
+                LatLng destLatLng = destinationLookup.get();
+                long geocoded = SystemClock.elapsedRealtime();
+                timings.geocodeMillis = geocoded - start;
+
+                if (isCancelled()) {
+                    return null;
                 }
                 if (originLatLng == null || destLatLng == null) {
                     errorMessage = "Impossible de localiser l'adresse";
                     return null;
                 }
-                // Étape 2 : Obtenir l'itinéraire avec OSRM
-                return getRouteFromOSRM(originLatLng, destLatLng);
+                // Étape 2 : Obtenir l'itinéraire (cache, sinon OSRM) dès que les deux positions sont connues
+                RouteCache cache = routeCache;
+                String source = routeSource();
+                RouteInfo routeInfo = cache != null ? cache.get(source, originLatLng, destLatLng) : null;
+                if (routeInfo != null) {
+                    timings.routeFromCache = true;
+                } else {
+                    routeInfo = getRouteFromProvider(originLatLng, destLatLng);
+                    if (routeInfo != null && cache != null && !isCancelled()) {
+                        cache.put(source, originLatLng, destLatLng, routeInfo);
+                    }
+                }
+                long end = SystemClock.elapsedRealtime();
+                timings.routeMillis = end - geocoded;
+                timings.totalMillis = end - start;
+
+                if (routeInfo != null) {
+                    routeInfo.timings = timings;
+                    Log.d(TAG, "Route computed: " + timings);
+                }
+                return routeInfo;
             } catch (Exception e) {
-                Log.e(TAG, "Error fetching directions", e);
+                if (!isCancelled()) {
+                    Log.e(TAG, "Error fetching directions", e);
+                }
                 errorMessage = "Erreur: " + e.getMessage();
                 return null;
             }
         }
 
-        @Override
-        protected void onPostExecute(RouteInfo routeInfo) {
-            if (routeInfo != null && callback != null) {
-                callback.onDirectionsReceived(routeInfo);
-            } else if (callback != null) {
-                callback.onDirectionsError(errorMessage != null ? errorMessage : "Impossible de calculer l'itinéraire");
+        /**
+         * Lance la résolution d'une saisie : coordonnées directes ou recherche
+         * Nominatim sur l'exécuteur de géocodage (distinct du pool de routage,
+         * qui attend le résultat)
+         */
+        private Future<LatLng> startGeocode(String input, boolean isOrigin) {
+            LatLng coordinates = parseCoordinates(input);
+            if (coordinates != null) {
+                return CompletableFuture.completedFuture(coordinates);
+            }
+
+            Callable<LatLng> lookup = () -> {
+                long start = SystemClock.elapsedRealtime();
+                LatLng result = geocodeAddress(input);
+                long elapsed = SystemClock.elapsedRealtime() - start;
+                if (isOrigin) {
+                    timings.originGeocodeMillis = elapsed;
+                } else {
+                    timings.destinationGeocodeMillis = elapsed;
+                }
+                return result;
+            };
+
+            try {
+                Future<LatLng> future = RoutingExecutors.geocoding().submit(lookup);
+                geocodeLookups.add(future);
+                return future;
+            } catch (RejectedExecutionException e) {
+                // File saturée : recherche sur le thread courant
+                FutureTask<LatLng> inline = new FutureTask<>(lookup);
+                inline.run();
+                return inline;
             }
         }
 
@@ -109,208 +432,78 @@ public class DirectionsHelper {
         }
 
         /**
-         * Géocode une adresse en utilisant Nominatim (GRATUIT)
+         * Géocode une adresse (cache, index hors ligne, sinon fournisseur de géocodage)
          */
         private LatLng geocodeAddress(String address) {
-            try {
-                String encodedAddress = URLEncoder.encode(address, "UTF-8");
-                String urlString = NOMINATIM_API_URL + "?q=" + encodedAddress + "&format=json&limit=1";
-
-                URL url = new URL(urlString);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("GET");
-                connection.setRequestProperty("User-Agent", "TP7MapApp/1.0");
-
-                int responseCode = connection.getResponseCode();
-                if (responseCode == HttpURLConnection.HTTP_OK) {
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                    StringBuilder response = new StringBuilder();
-                    String line;
-
-                    while ((line = reader.readLine()) != null) {
-                        response.append(line);
-                    }
-                    reader.close();
-
-                    JSONArray results = new JSONArray(response.toString());
-                    if (results.length() > 0) {
-                        JSONObject location = results.getJSONObject(0);
-                        double lat = location.getDouble("lat");
-                        double lon = location.getDouble("lon");
-                        return new LatLng(lat, lon);
-                    }
+            GeocodeCache cache = geocodeCache;
+            if (cache != null) {
+                LatLng cached = cache.get(address);
+                if (cached != null) {
+                    return cached;
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "Geocoding error", e);
             }
-            return null;
-        }
-
-        /**
-         * Obtient l'itinéraire avec OSRM (GRATUIT)
-         */
-        private RouteInfo getRouteFromOSRM(LatLng origin, LatLng destination) {
-            try {
-                // Format OSRM : lng,lat;lng,lat
-                String coordinates = origin.longitude + "," + origin.latitude + ";" +
-                        destination.longitude + "," + destination.latitude;
-
-                String urlString = OSRM_API_URL + coordinates +
-                        "?overview=full&steps=true&geometries=geojson";
-
-                URL url = new URL(urlString);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("GET");
 
-                int responseCode = connection.getResponseCode();
-                if (responseCode == HttpURLConnection.HTTP_OK) {
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                    StringBuilder response = new StringBuilder();
-                    String line;
-
-                    while ((line = reader.readLine()) != null) {
-                        response.append(line);
-                    }
-                    reader.close();
-
-                    return parseOSRMResponse(response.toString());
-                } else {
-                    errorMessage = "Erreur HTTP: " + responseCode;
-                    return null;
+            OfflineGeocoder offline = offlineGeocoder;
+            if (offline != null) {
+                LatLng local = offline.geocode(address);
+                if (local != null) {
+                    return local;
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "OSRM request error", e);
-                errorMessage = "Erreur OSRM: " + e.getMessage();
-                return null;
             }
-        }
 
-        /**
-         * Parse la réponse OSRM
-         */
-        private RouteInfo parseOSRMResponse(String jsonResponse) {
             try {
-                JSONObject json = new JSONObject(jsonResponse);
-                String code = json.getString("code");
-
-                if (!code.equals("Ok")) {
-                    errorMessage = "OSRM Status: " + code;
-                    return null;
+                LatLng result = geocodingProvider.geocode(address, request);
+                if (result != null && cache != null) {
+                    cache.put(address, result);
                 }
-
-                RouteInfo routeInfo = new RouteInfo();
-                JSONArray routes = json.getJSONArray("routes");
-
-                if (routes.length() > 0) {
-                    JSONObject route = routes.getJSONObject(0);
-
-                    // Distance en mètres
-                    double distanceMeters = route.getDouble("distance");
-                    routeInfo.distance = formatDistance(distanceMeters);
-
-                    // Durée en secondes
-                    double durationSeconds = route.getDouble("duration");
-                    routeInfo.duration = formatDuration(durationSeconds);
-
-                    // Géométrie (coordonnées du tracé)
-                    JSONObject geometry = route.getJSONObject("geometry");
-                    JSONArray coordinates = geometry.getJSONArray("coordinates");
-
-                    for (int i = 0; i < coordinates.length(); i++) {
-                        JSONArray coord = coordinates.getJSONArray(i);
-                        double lng = coord.getDouble(0);
-                        double lat = coord.getDouble(1);
-                        routeInfo.points.add(new LatLng(lat, lng));
-                    }
-
-                    // Étapes
-                    JSONArray legs = route.getJSONArray("legs");
-                    if (legs.length() > 0) {
-                        JSONObject leg = legs.getJSONObject(0);
-                        JSONArray steps = leg.getJSONArray("steps");
-
-                        for (int i = 0; i < steps.length(); i++) {
-                            JSONObject step = steps.getJSONObject(i);
-                            String maneuver = step.getJSONObject("maneuver").optString("type", "");
-                            String name = step.optString("name", "Route sans nom");
-                            double stepDistance = step.getDouble("distance");
-
-                            String instruction = (i + 1) + ". " +
-                                    translateManeuver(maneuver) + " " + name +
-                                    " (" + formatDistance(stepDistance) + ")";
-                            routeInfo.steps.add(instruction);
-                        }
-                    }
-                }
-
-                return routeInfo;
+                return result;
             } catch (Exception e) {
-                Log.e(TAG, "Error parsing OSRM response", e);
-                errorMessage = "Erreur de parsing: " + e.getMessage();
+                if (!request.isCancelled()) {
+                    Log.e(TAG, "Geocoding error", e);
+                }
                 return null;
             }
         }
 
         /**
-         * Formate la distance
+         * Identité des sources d'itinéraires configurées (hors ligne puis en ligne),
+         * pour ne pas resservir la route d'un autre fournisseur ou profil
          */
-        private String formatDistance(double meters) {
-            if (meters < 1000) {
-                return String.format("%.0f m", meters);
-            } else {
-                return String.format("%.1f km", meters / 1000);
-            }
+        private String routeSource() {
+            RoutingProvider offline = offlineRoutingProvider;
+            return (offline != null ? offline.getCacheKey() : "") + "|" + routingProvider.getCacheKey();
         }
 
         /**
-         * Formate la durée
+         * Obtient l'itinéraire hors ligne si possible, sinon auprès du fournisseur de routage
          */
-        private String formatDuration(double seconds) {
-            int hours = (int) (seconds / 3600);
-            int minutes = (int) ((seconds % 3600) / 60);
-
-            if (hours > 0) {
-                return String.format("%d h %d min", hours, minutes);
-            } else {
-                return String.format("%d min", minutes);
+        private RouteInfo getRouteFromProvider(LatLng origin, LatLng destination) {
+            RoutingProvider offline = offlineRoutingProvider;
+            if (offline != null) {
+                try {
+                    RouteInfo routeInfo = offline.getRoute(origin, destination, request);
+                    if (routeInfo != null || request.isCancelled()) {
+                        return routeInfo;
+                    }
+                } catch (RoutingException | IOException e) {
+                    // Hors de la région ou pas de chemin : le serveur prend le relais
+                    Log.w(TAG, "Offline routing unavailable: " + e.getMessage());
+                }
             }
-        }
 
-        /**
-         * Traduit les manœuvres en français
-         */
-        private String translateManeuver(String maneuver) {
-            switch (maneuver) {
-                case "turn":
-                    return "Tourner";
-                case "new name":
-                    return "Continuer sur";
-                case "depart":
-                    return "Partir sur";
-                case "arrive":
-                    return "Arriver à";
-                case "merge":
-                    return "Rejoindre";
-                case "on ramp":
-                    return "Prendre la rampe";
-                case "off ramp":
-                    return "Sortir";
-                case "fork":
-                    return "Bifurquer";
-                case "end of road":
-                    return "Fin de route";
-                case "continue":
-                    return "Continuer";
-                case "roundabout":
-                    return "Rond-point";
-                case "rotary":
-                    return "Giratoire";
-                case "turn left":
-                    return "Tourner à gauche";
-                case "turn right":
-                    return "Tourner à droite";
-                default:
-                    return "Suivre";
+            try {
+                return routingProvider.getRoute(origin, destination, request);
+            } catch (RoutingException e) {
+                Log.e(TAG, "Routing error", e);
+                errorMessage = e.getMessage();
+                return null;
+            } catch (IOException e) {
+                if (request.isCancelled()) {
+                    return null;
+                }
+                Log.e(TAG, "Routing request error", e);
+                errorMessage = "Erreur OSRM: " + e.getMessage();
+                return null;
             }
         }
     }
@@ -16,14 +16,17 @@ import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.AutoCompleteTextView;
 import android.widget.Button;
-import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import com.example.tp7.ar.ARNavigationActivity;
+import com.example.tp7.offline.OfflineGeocoder;
+import com.example.tp7.route.RouteGeometry;
+import com.example.tp7.routing.RouteStore;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.maps.CameraUpdateFactory;
@@ -67,6 +70,7 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
     private Polyline currentPolyline;
     private Location currentLocation;
     private DirectionsHelper.RouteInfo currentRouteInfo; // Stocker les infos de route
+    private DirectionsHelper.RouteRequest routeRequest; // Calcul d'itinéraire en cours
 
     // Pour la navigation
     private NavigationManager navigationManager;
@@ -77,6 +81,9 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        // Caches persistants (géocodage, itinéraires)
+        DirectionsHelper.init(this);
+
         // Initialiser les composants UI
         btnMapType = findViewById(R.id.btnMapType);
         fabClearMarkers = findViewById(R.id.fabClearMarkers);
@@ -148,6 +155,17 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         setupClickListeners();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+
+        // Ne pas recevoir d'itinéraire après la fermeture de l'écran
+        if (routeRequest != null) {
+            routeRequest.cancel();
+            routeRequest = null;
+        }
+    }
+
     /**
      * Configure les écouteurs de clics pour les boutons
      */
@@ -280,8 +298,18 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
     private void showRouteDialog() {
         View dialogView = LayoutInflater.from(this).inflate(R.layout.dialog_route, null);
 
-        EditText etOrigin = dialogView.findViewById(R.id.etOrigin);
-        EditText etDestination = dialogView.findViewById(R.id.etDestination);
+        AutoCompleteTextView etOrigin = dialogView.findViewById(R.id.etOrigin);
+        AutoCompleteTextView etDestination = dialogView.findViewById(R.id.etDestination);
+
+        // Saisie semi-automatique sur l'index hors ligne ; la suggestion choisie
+        // est utilisée par ses coordonnées (pas de nouvelle recherche)
+        OfflineGeocoder.Suggestion[] selected = new OfflineGeocoder.Suggestion[2];
+        etOrigin.setAdapter(new AddressSuggestionAdapter(this));
+        etDestination.setAdapter(new AddressSuggestionAdapter(this));
+        etOrigin.setOnItemClickListener((parent, view, position, id) ->
+                selected[0] = (OfflineGeocoder.Suggestion) parent.getItemAtPosition(position));
+        etDestination.setOnItemClickListener((parent, view, position, id) ->
+                selected[1] = (OfflineGeocoder.Suggestion) parent.getItemAtPosition(position));
         Button btnUseMyLocation = dialogView.findViewById(R.id.btnUseMyLocation);
         Button btnCalculateRoute = dialogView.findViewById(R.id.btnCalculateRoute);
         Button btnCancelRoute = dialogView.findViewById(R.id.btnCancelRoute);
@@ -294,7 +322,7 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         btnUseMyLocation.setOnClickListener(v -> {
             if (currentLocation != null) {
                 String location = currentLocation.getLatitude() + "," + currentLocation.getLongitude();
-                etOrigin.setText(location);
+                etOrigin.setText(location, false);
                 Toast.makeText(this, "Position actuelle utilisée", Toast.LENGTH_SHORT).show();
             } else {
                 Toast.makeText(this, "Position actuelle non disponible", Toast.LENGTH_SHORT).show();
@@ -311,6 +339,9 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
                 return;
             }
 
+            origin = resolveSuggestion(origin, selected[0]);
+            destination = resolveSuggestion(destination, selected[1]);
+
             calculateRoute(origin, destination);
             dialog.dismiss();
         });
@@ -321,21 +352,33 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         dialog.show();
     }
 
+    /**
+     * Coordonnées "lat,lng" de la suggestion choisie si le champ n'a pas été modifié depuis
+     */
+    private static String resolveSuggestion(String text, OfflineGeocoder.Suggestion suggestion) {
+        if (suggestion != null && text.equals(suggestion.name)) {
+            return suggestion.location.latitude + "," + suggestion.location.longitude;
+        }
+        return text;
+    }
+
     /**
      * Calcule l'itinéraire entre deux points (GRATUIT avec OSRM)
      */
     private void calculateRoute(String origin, String destination) {
         Toast.makeText(this, "Calcul de l'itinéraire...", Toast.LENGTH_SHORT).show();
 
-        DirectionsHelper.getDirections(origin, destination,
+        routeRequest = DirectionsHelper.getDirections(origin, destination,
                 new DirectionsHelper.DirectionsCallback() {
                     @Override
                     public void onDirectionsReceived(DirectionsHelper.RouteInfo routeInfo) {
+                        routeRequest = null;
                         showRoutePreview(origin, destination, routeInfo);
                     }
 
                     @Override
                     public void onDirectionsError(String error) {
+                        routeRequest = null;
                         Toast.makeText(MainActivity.this,
                                 "Erreur: " + error,
                                 Toast.LENGTH_LONG).show();
@@ -394,7 +437,7 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
      * Affiche l'itinéraire sur la carte
      */
     private void displayRoute(DirectionsHelper.RouteInfo routeInfo) {
-        if (mMap == null || routeInfo == null || routeInfo.points.isEmpty()) {
+        if (mMap == null || routeInfo == null || routeInfo.geometry.isEmpty()) {
             return;
         }
 
@@ -416,8 +459,9 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         currentPolyline = mMap.addPolyline(polylineOptions);
 
         // Ajouter des marqueurs pour le début et la fin
-        LatLng start = routeInfo.points.get(0);
-        LatLng end = routeInfo.points.get(routeInfo.points.size() - 1);
+        RouteGeometry geometry = routeInfo.geometry;
+        LatLng start = geometry.getFirst();
+        LatLng end = geometry.getLast();
 
         mMap.addMarker(new MarkerOptions()
                 .position(start)
@@ -432,11 +476,11 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
                 .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_RED)));
 
         // Ajouter des marqueurs intermédiaires tous les 20% du trajet
-        int totalPoints = routeInfo.points.size();
+        int totalPoints = geometry.size();
         for (int i = 1; i < 5; i++) {
             int index = (totalPoints * i) / 5;
             if (index < totalPoints) {
-                LatLng waypoint = routeInfo.points.get(index);
+                LatLng waypoint = geometry.getLatLng(index);
                 mMap.addMarker(new MarkerOptions()
                         .position(waypoint)
                         .title("Étape " + i)
@@ -445,11 +489,17 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         }
 
         // Ajuster la caméra pour afficher tout l'itinéraire
-        LatLngBounds.Builder boundsBuilder = new LatLngBounds.Builder();
-        for (LatLng point : routeInfo.points) {
-            boundsBuilder.include(point);
+        double[] latitudes = geometry.getLatitudes();
+        double[] longitudes = geometry.getLongitudes();
+        double minLat = latitudes[0], maxLat = latitudes[0];
+        double minLng = longitudes[0], maxLng = longitudes[0];
+        for (int i = 1; i < totalPoints; i++) {
+            minLat = Math.min(minLat, latitudes[i]);
+            maxLat = Math.max(maxLat, latitudes[i]);
+            minLng = Math.min(minLng, longitudes[i]);
+            maxLng = Math.max(maxLng, longitudes[i]);
         }
-        LatLngBounds bounds = boundsBuilder.build();
+        LatLngBounds bounds = new LatLngBounds(new LatLng(minLat, minLng), new LatLng(maxLat, maxLng));
         mMap.animateCamera(CameraUpdateFactory.newLatLngBounds(bounds, 100));
 
         // Afficher les informations de l'itinéraire
@@ -780,12 +830,23 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
      * Met à jour l'interface de navigation
      */
     private void updateNavigationUI(NavigationManager.NavigationUpdate update) {
-        tvNextInstruction.setText(update.nextInstruction);
-        tvDistanceToNext.setText("Dans " + update.distanceToNext);
-        tvRemainingDistance.setText(update.remainingDistance);
-        tvRemainingTime.setText(update.remainingTime);
-        tvArrivalTime.setText(update.arrivalTime);
-        tvManeuverIcon.setText(update.maneuverIcon);
+        // Ne mettre à jour que les textes dont la valeur affichée a changé
+        if (update.instructionChanged) {
+            tvNextInstruction.setText(update.nextInstruction);
+            tvManeuverIcon.setText(update.maneuverIcon);
+        }
+        if (update.hasDistanceToNextChanged()) {
+            tvDistanceToNext.setText("Dans " + update.getDistanceToNext());
+        }
+        if (update.hasRemainingDistanceChanged()) {
+            tvRemainingDistance.setText(update.getRemainingDistance());
+        }
+        if (update.hasRemainingTimeChanged()) {
+            tvRemainingTime.setText(update.getRemainingTime());
+        }
+        if (update.hasArrivalTimeChanged()) {
+            tvArrivalTime.setText(update.getArrivalTime());
+        }
         progressNavigation.setProgress(update.progress);
     }
 
@@ -813,7 +874,7 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
      * Démarre la navigation AR
      */
     private void startARNavigation() {
-        if (currentRouteInfo == null || currentRouteInfo.points.isEmpty()) {
+        if (currentRouteInfo == null || currentRouteInfo.geometry.isEmpty()) {
             Toast.makeText(this, "Itinéraire invalide", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -822,11 +883,13 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         Toast.makeText(this, "Lancement de la navigation AR...", Toast.LENGTH_SHORT).show();
 
         // Préparer les données
-        LatLng origin = currentRouteInfo.points.get(0);
-        LatLng destination = currentRouteInfo.points.get(currentRouteInfo.points.size() - 1);
+        LatLng origin = currentRouteInfo.geometry.getFirst();
+        LatLng destination = currentRouteInfo.geometry.getLast();
 
         // Lancer l'activité AR
         android.content.Intent intent = new android.content.Intent(this, ARNavigationActivity.class);
+        // Route déjà calculée transmise par identifiant (pas de nouveau calcul côté AR)
+        intent.putExtra(ARNavigationActivity.EXTRA_ROUTE_ID, RouteStore.put(currentRouteInfo));
         intent.putExtra(ARNavigationActivity.EXTRA_ORIGIN,
                 origin.latitude + "," + origin.longitude);
         intent.putExtra(ARNavigationActivity.EXTRA_DESTINATION,
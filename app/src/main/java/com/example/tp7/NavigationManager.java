@@ -5,12 +5,16 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
-import com.google.android.gms.maps.model.LatLng;
-
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import com.example.tp7.route.RouteDistanceTable;
+import com.example.tp7.route.RouteGeometry;
+import com.example.tp7.route.RouteMatcher;
+import com.example.tp7.route.RouteSpatialIndex;
+import com.example.tp7.route.SegmentMatch;
+import com.example.tp7.route.StepIndex;
+
+import java.text.DecimalFormatSymbols;
 import java.util.List;
-import java.util.Locale;
+import java.util.TimeZone;
 
 public class NavigationManager {
     private static final String TAG = "NavigationManager";
@@ -22,6 +26,23 @@ public class NavigationManager {
     private int currentStepIndex = 0;
     private boolean isNavigating = false;
 
+    // Index spatial des segments (construit une fois par itinéraire)
+    private RouteSpatialIndex spatialIndex;
+    private final SegmentMatch currentMatch = new SegmentMatch();
+
+    // Distances cumulées le long de la route
+    private RouteDistanceTable distanceTable;
+
+    // Rattachement à la route (curseur + fenêtre, détection de sortie de route)
+    private RouteMatcher routeMatcher;
+
+    // Début de chaque étape le long de la route (géométrie des manœuvres OSRM)
+    private StepIndex stepIndex;
+
+    // Mise à jour réutilisée à chaque position (aucune allocation en régime établi)
+    private NavigationUpdate update;
+    private final float[] distanceResult = new float[1];
+
     private NavigationListener listener;
     private Handler handler;
     private Runnable updateRunnable;
@@ -33,16 +54,135 @@ public class NavigationManager {
         void onOffRoute();
     }
 
+    /**
+     * Mise à jour de navigation réutilisable (une seule instance par navigation)
+     * Les valeurs sont numériques ; les textes sont formatés à la demande et
+     * gardés en cache tant que la valeur affichée ne change pas
+     */
     public static class NavigationUpdate {
+        private static final long KM_FLAG = 1L << 40;
+
         public String nextInstruction;
-        public String distanceToNext;
-        public String remainingDistance;
-        public String remainingTime;
-        public String arrivalTime;
-        public int progress;
         public String maneuverIcon;
+        public boolean instructionChanged;
+
+        public float distanceToNextMeters;
+        public float remainingMeters;
+        public float remainingSeconds;
+        public long arrivalTimeMillis;
+        public int progress;
+
+        private final TimeZone timeZone = TimeZone.getDefault();
+        private final char decimalSeparator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+        private final StringBuilder builder = new StringBuilder(16);
+
+        private long distanceToNextKey = Long.MIN_VALUE;
+        private String distanceToNextText;
+        private long remainingDistanceKey = Long.MIN_VALUE;
+        private String remainingDistanceText;
+        private long remainingTimeKey = Long.MIN_VALUE;
+        private String remainingTimeText;
+        private long arrivalTimeKey = Long.MIN_VALUE;
+        private String arrivalTimeText;
 
         public NavigationUpdate() {}
+
+        public boolean hasDistanceToNextChanged() {
+            return distanceToNextText == null || distanceKey(distanceToNextMeters) != distanceToNextKey;
+        }
+
+        public String getDistanceToNext() {
+            long key = distanceKey(distanceToNextMeters);
+            if (distanceToNextText == null || key != distanceToNextKey) {
+                distanceToNextKey = key;
+                distanceToNextText = formatDistanceKey(key);
+            }
+            return distanceToNextText;
+        }
+
+        public boolean hasRemainingDistanceChanged() {
+            return remainingDistanceText == null || distanceKey(remainingMeters) != remainingDistanceKey;
+        }
+
+        public String getRemainingDistance() {
+            long key = distanceKey(remainingMeters);
+            if (remainingDistanceText == null || key != remainingDistanceKey) {
+                remainingDistanceKey = key;
+                remainingDistanceText = formatDistanceKey(key);
+            }
+            return remainingDistanceText;
+        }
+
+        public boolean hasRemainingTimeChanged() {
+            return remainingTimeText == null || (long) (remainingSeconds / 60) != remainingTimeKey;
+        }
+
+        public String getRemainingTime() {
+            long key = (long) (remainingSeconds / 60);
+            if (remainingTimeText == null || key != remainingTimeKey) {
+                remainingTimeKey = key;
+                remainingTimeText = formatDurationKey(key);
+            }
+            return remainingTimeText;
+        }
+
+        public boolean hasArrivalTimeChanged() {
+            return arrivalTimeText == null || arrivalTimeMillis / 60000 != arrivalTimeKey;
+        }
+
+        public String getArrivalTime() {
+            long key = arrivalTimeMillis / 60000;
+            if (arrivalTimeText == null || key != arrivalTimeKey) {
+                arrivalTimeKey = key;
+                arrivalTimeText = formatClock(arrivalTimeMillis);
+            }
+            return arrivalTimeText;
+        }
+
+        /**
+         * Valeur affichée : mètres entiers sous 1 km, dixièmes de km au-delà
+         */
+        private static long distanceKey(float meters) {
+            if (meters < 999.5f) {
+                return Math.round(Math.max(meters, 0f));
+            }
+            return KM_FLAG | Math.round(meters / 100f);
+        }
+
+        private String formatDistanceKey(long key) {
+            builder.setLength(0);
+            if ((key & KM_FLAG) == 0) {
+                builder.append(key).append(" m");
+            } else {
+                long tenths = key & ~KM_FLAG;
+                builder.append(tenths / 10).append(decimalSeparator).append(tenths % 10).append(" km");
+            }
+            return builder.toString();
+        }
+
+        private String formatDurationKey(long totalMinutes) {
+            builder.setLength(0);
+            long hours = totalMinutes / 60;
+            if (hours > 0) {
+                builder.append(hours).append(" h ");
+            }
+            builder.append(totalMinutes % 60).append(" min");
+            return builder.toString();
+        }
+
+        private String formatClock(long millis) {
+            long localMinutes = (millis + timeZone.getOffset(millis)) / 60000;
+            int minuteOfDay = (int) (((localMinutes % 1440) + 1440) % 1440);
+            int hours = minuteOfDay / 60;
+            int minutes = minuteOfDay % 60;
+
+            builder.setLength(0);
+            if (hours < 10) builder.append('0');
+            builder.append(hours).append(':');
+            if (minutes < 10) builder.append('0');
+            builder.append(minutes);
+            return builder.toString();
+        }
     }
 
     public NavigationManager(NavigationListener listener) {
@@ -58,6 +198,12 @@ public class NavigationManager {
         this.steps = routeInfo.steps;
         this.currentStepIndex = 0;
         this.isNavigating = true;
+        this.spatialIndex = new RouteSpatialIndex(routeInfo.geometry);
+        this.distanceTable = routeInfo.getDistanceTable();
+        this.routeMatcher = new RouteMatcher(spatialIndex, distanceTable);
+        this.stepIndex = new StepIndex(routeInfo.stepStartIndices, steps.size(), distanceTable);
+        this.update = new NavigationUpdate();
+        refreshInstruction();
 
         Log.d(TAG, "Navigation started with " + steps.size() + " steps");
     }
@@ -66,15 +212,18 @@ public class NavigationManager {
      * Met à jour la position actuelle
      */
     public void updateLocation(Location location) {
-        if (!isNavigating || routeInfo == null || steps.isEmpty()) {
+        if (!isNavigating || routeInfo == null || steps.isEmpty() || routeInfo.geometry.isEmpty()) {
             return;
         }
 
-        LatLng currentPosition = new LatLng(location.getLatitude(), location.getLongitude());
+        double latitude = location.getLatitude();
+        double longitude = location.getLongitude();
 
         // Vérifier si on est arrivé
-        LatLng destination = routeInfo.points.get(routeInfo.points.size() - 1);
-        float distanceToDestination = distanceBetween(currentPosition, destination);
+        RouteGeometry geometry = routeInfo.geometry;
+        int destination = geometry.size() - 1;
+        float distanceToDestination = distanceBetween(latitude, longitude,
+                geometry.getLatitude(destination), geometry.getLongitude(destination));
 
         if (distanceToDestination < ARRIVAL_THRESHOLD) {
             isNavigating = false;
@@ -85,47 +234,51 @@ public class NavigationManager {
         }
 
         // Trouver le point le plus proche sur la route
-        int closestPointIndex = findClosestPoint(currentPosition);
+        int closestPointIndex = findClosestPoint(latitude, longitude);
+
+        // Position le long de la route (point projeté sur le segment courant)
+        double travelled = currentMatch.isValid()
+                ? distanceTable.distanceAt(closestPointIndex, currentMatch.fraction)
+                : distanceTable.distanceAt(closestPointIndex);
 
         // Vérifier si on doit passer à l'étape suivante
-        updateCurrentStep(currentPosition, closestPointIndex);
+        updateCurrentStep(travelled);
 
         // Calculer et envoyer les mises à jour
-        NavigationUpdate update = calculateNavigationUpdate(currentPosition, closestPointIndex);
+        calculateNavigationUpdate(travelled);
         if (listener != null) {
             listener.onNavigationUpdate(update);
         }
+        update.instructionChanged = false;
     }
 
     /**
-     * Trouve le point le plus proche sur la route
+     * Trouve le segment le plus proche sur la route (fenêtre autour du dernier rattachement)
+     * Le point projeté sur ce segment est conservé dans currentMatch
+     * @return Index du premier point du segment
      */
-    private int findClosestPoint(LatLng currentPosition) {
-        float minDistance = Float.MAX_VALUE;
-        int closestIndex = 0;
-
-        for (int i = 0; i < routeInfo.points.size(); i++) {
-            float distance = distanceBetween(currentPosition, routeInfo.points.get(i));
-            if (distance < minDistance) {
-                minDistance = distance;
-                closestIndex = i;
+    private int findClosestPoint(double latitude, double longitude) {
+        RouteMatcher.Status status = routeMatcher.match(latitude, longitude, currentMatch);
+
+        if (status == RouteMatcher.Status.OFF_ROUTE_DETECTED) {
+            Log.d(TAG, "Off route: " + currentMatch.distance + " m from route");
+            if (listener != null) {
+                listener.onOffRoute();
             }
         }
 
-        return closestIndex;
+        return currentMatch.isValid() ? currentMatch.segmentIndex : 0;
     }
 
     /**
-     * Met à jour l'étape actuelle si nécessaire
+     * Met à jour l'étape actuelle si nécessaire (recherche dichotomique sur les débuts d'étapes)
      */
-    private void updateCurrentStep(LatLng currentPosition, int closestPointIndex) {
-        // Simple logique : passer à l'étape suivante tous les 20% du trajet
-        int totalPoints = routeInfo.points.size();
-        int pointsPerStep = totalPoints / Math.max(steps.size(), 1);
-        int estimatedStepIndex = closestPointIndex / Math.max(pointsPerStep, 1);
+    private void updateCurrentStep(double travelled) {
+        int estimatedStepIndex = stepIndex.stepAt(travelled);
 
         if (estimatedStepIndex > currentStepIndex && estimatedStepIndex < steps.size()) {
             currentStepIndex = estimatedStepIndex;
+            refreshInstruction();
             if (listener != null) {
                 listener.onStepChanged(currentStepIndex, steps.get(currentStepIndex));
             }
@@ -133,93 +286,49 @@ public class NavigationManager {
     }
 
     /**
-     * Calcule les informations de navigation
+     * Met à jour l'instruction et l'icône (uniquement au changement d'étape)
      */
-    private NavigationUpdate calculateNavigationUpdate(LatLng currentPosition, int closestPointIndex) {
-        NavigationUpdate update = new NavigationUpdate();
-
-        // Instruction suivante
-        if (currentStepIndex < steps.size()) {
-            update.nextInstruction = steps.get(currentStepIndex);
+    private void refreshInstruction() {
+        // Prochaine manœuvre = début de l'étape suivante (ou la dernière étape : arrivée)
+        int nextStep = Math.min(currentStepIndex + 1, steps.size() - 1);
+        if (nextStep >= 0) {
+            update.nextInstruction = steps.get(nextStep);
             update.maneuverIcon = getManeuverIcon(update.nextInstruction);
         } else {
             update.nextInstruction = "Continuer tout droit";
             update.maneuverIcon = "⬆️";
         }
+        update.instructionChanged = true;
+    }
 
-        // Distance jusqu'à la prochaine étape
-        int nextStepPoint = Math.min((currentStepIndex + 1) * (routeInfo.points.size() / Math.max(steps.size(), 1)),
-                routeInfo.points.size() - 1);
-        float distanceToNextStep = calculateRemainingDistance(closestPointIndex, nextStepPoint);
-        update.distanceToNext = formatDistance(distanceToNextStep);
+    /**
+     * Calcule les informations de navigation (valeurs numériques uniquement)
+     */
+    private void calculateNavigationUpdate(double travelled) {
+        // Distance jusqu'à la prochaine manœuvre
+        update.distanceToNextMeters = (float) stepIndex.distanceToNextManeuver(
+                currentStepIndex, travelled, distanceTable.getTotalDistance());
 
         // Distance restante totale
-        float remainingDist = calculateRemainingDistance(closestPointIndex, routeInfo.points.size() - 1);
-        update.remainingDistance = formatDistance(remainingDist);
+        update.remainingMeters = (float) (distanceTable.getTotalDistance() - travelled);
 
         // Temps restant (estimation basée sur 50 km/h en moyenne)
-        float remainingTimeMinutes = (remainingDist / 1000) * 1.2f; // 1.2 min par km
-        update.remainingTime = formatDuration(remainingTimeMinutes * 60);
+        float remainingTimeMinutes = (update.remainingMeters / 1000) * 1.2f; // 1.2 min par km
+        update.remainingSeconds = remainingTimeMinutes * 60;
 
         // Heure d'arrivée estimée
-        Calendar calendar = Calendar.getInstance();
-        calendar.add(Calendar.MINUTE, (int) remainingTimeMinutes);
-        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        update.arrivalTime = sdf.format(calendar.getTime());
+        update.arrivalTimeMillis = System.currentTimeMillis() + (long) (update.remainingSeconds * 1000);
 
         // Progression
-        update.progress = (int) ((closestPointIndex / (float) routeInfo.points.size()) * 100);
-
-        return update;
-    }
-
-    /**
-     * Calcule la distance restante entre deux points sur la route
-     */
-    private float calculateRemainingDistance(int fromIndex, int toIndex) {
-        float totalDistance = 0;
-        for (int i = fromIndex; i < toIndex && i < routeInfo.points.size() - 1; i++) {
-            totalDistance += distanceBetween(routeInfo.points.get(i), routeInfo.points.get(i + 1));
-        }
-        return totalDistance;
+        update.progress = distanceTable.progressPercent(travelled);
     }
 
     /**
      * Calcule la distance entre deux points
      */
-    private float distanceBetween(LatLng point1, LatLng point2) {
-        float[] results = new float[1];
-        Location.distanceBetween(
-                point1.latitude, point1.longitude,
-                point2.latitude, point2.longitude,
-                results
-        );
-        return results[0];
-    }
-
-    /**
-     * Formate une distance
-     */
-    private String formatDistance(float meters) {
-        if (meters < 1000) {
-            return String.format("%.0f m", meters);
-        } else {
-            return String.format("%.1f km", meters / 1000);
-        }
-    }
-
-    /**
-     * Formate une durée en secondes
-     */
-    private String formatDuration(float seconds) {
-        int hours = (int) (seconds / 3600);
-        int minutes = (int) ((seconds % 3600) / 60);
-
-        if (hours > 0) {
-            return String.format("%d h %d min", hours, minutes);
-        } else {
-            return String.format("%d min", minutes);
-        }
+    private float distanceBetween(double lat1, double lng1, double lat2, double lng2) {
+        Location.distanceBetween(lat1, lng1, lat2, lng2, distanceResult);
+        return distanceResult[0];
     }
 
     /**
@@ -253,6 +362,10 @@ public class NavigationManager {
     public void stopNavigation() {
         isNavigating = false;
         currentStepIndex = 0;
+        spatialIndex = null;
+        distanceTable = null;
+        routeMatcher = null;
+        stepIndex = null;
         if (updateRunnable != null && handler != null) {
             handler.removeCallbacks(updateRunnable);
         }
@@ -17,6 +17,8 @@ import androidx.core.content.ContextCompat;
 
 import com.example.tp7.R;
 import com.example.tp7.DirectionsHelper;
+import com.example.tp7.route.RouteGeometry;
+import com.example.tp7.routing.RouteStore;
 import com.example.tp7.utils.GeoUtils;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationCallback;
@@ -40,6 +42,8 @@ public class ARNavigationActivity extends AppCompatActivity {
 
     public static final String EXTRA_ORIGIN = "origin";
     public static final String EXTRA_DESTINATION = "destination";
+    // Identifiant d'une route déposée dans RouteStore (optionnel)
+    public static final String EXTRA_ROUTE_ID = "route_id";
 
     // UI Components
     private ArSceneView arSceneView;
@@ -66,7 +70,9 @@ public class ARNavigationActivity extends AppCompatActivity {
     // Navigation data
     private LatLng originGPS;
     private LatLng destinationGPS;
-    private List<LatLng> routePoints;
+    private RouteGeometry routeGeometry;
+    private DirectionsHelper.RouteRequest routeRequest;
+    private long routeId = -1;
     private boolean isNavigating = false;
 
     // Position filter
@@ -187,6 +193,14 @@ public class ARNavigationActivity extends AppCompatActivity {
     }
 
     private void getNavigationData() {
+        if (getIntent().hasExtra(EXTRA_ROUTE_ID)) {
+            routeId = getIntent().getLongExtra(EXTRA_ROUTE_ID, -1);
+            DirectionsHelper.RouteInfo routeInfo = RouteStore.get(routeId);
+            if (routeInfo != null) {
+                routeGeometry = routeInfo.geometry;
+            }
+        }
+
         if (getIntent().hasExtra(EXTRA_ORIGIN)) {
             String originStr = getIntent().getStringExtra(EXTRA_ORIGIN);
             String[] parts = originStr.split(",");
@@ -205,7 +219,8 @@ public class ARNavigationActivity extends AppCompatActivity {
             );
         }
 
-        Log.d(TAG, "Navigation: " + originGPS + " → " + destinationGPS);
+        Log.d(TAG, "Navigation: " + originGPS + " → " + destinationGPS +
+                (routeGeometry != null ? " (route transmise)" : ""));
     }
 
     private boolean checkPermissions() {
@@ -264,6 +279,12 @@ public class ARNavigationActivity extends AppCompatActivity {
     }
 
     private void calculateRoute() {
+        // Route transmise par l'écran carte : démarrage immédiat
+        if (routeGeometry != null && !routeGeometry.isEmpty()) {
+            startARNavigation();
+            return;
+        }
+
         if (originGPS == null || destinationGPS == null) {
             Toast.makeText(this, "Données de navigation manquantes", Toast.LENGTH_SHORT).show();
             finish();
@@ -273,16 +294,18 @@ public class ARNavigationActivity extends AppCompatActivity {
         String origin = originGPS.latitude + "," + originGPS.longitude;
         String destination = destinationGPS.latitude + "," + destinationGPS.longitude;
 
-        DirectionsHelper.getDirections(origin, destination,
+        routeRequest = DirectionsHelper.getDirections(origin, destination,
                 new DirectionsHelper.DirectionsCallback() {
                     @Override
                     public void onDirectionsReceived(DirectionsHelper.RouteInfo routeInfo) {
-                        routePoints = routeInfo.points;
+                        routeRequest = null;
+                        routeGeometry = routeInfo.geometry;
                         startARNavigation();
                     }
 
                     @Override
                     public void onDirectionsError(String error) {
+                        routeRequest = null;
                         Toast.makeText(ARNavigationActivity.this,
                                 "Erreur calcul route: " + error,
                                 Toast.LENGTH_LONG).show();
@@ -292,7 +315,7 @@ public class ARNavigationActivity extends AppCompatActivity {
     }
 
     private void startARNavigation() {
-        if (routePoints == null || routePoints.isEmpty()) {
+        if (routeGeometry == null || routeGeometry.isEmpty()) {
             Toast.makeText(this, "Route invalide", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -306,7 +329,7 @@ public class ARNavigationActivity extends AppCompatActivity {
                     currentGPS = new LatLng(location.getLatitude(), location.getLongitude());
 
                     arRouteRenderer.setOrigin(currentGPS);
-                    arRouteRenderer.createRoute(routePoints);
+                    arRouteRenderer.createRoute(routeGeometry);
 
                     startLocationUpdates();
                     startARUpdates();
@@ -483,10 +506,10 @@ public class ARNavigationActivity extends AppCompatActivity {
     }
 
     private void recenterRoute() {
-        if (currentGPS != null && routePoints != null) {
+        if (currentGPS != null && routeGeometry != null) {
             arRouteRenderer.setOrigin(currentGPS);
             arRouteRenderer.clearRoute();
-            arRouteRenderer.createRoute(routePoints);
+            arRouteRenderer.createRoute(routeGeometry);
             Toast.makeText(this, "✅ Route recentrée", Toast.LENGTH_SHORT).show();
         }
     }
@@ -526,6 +549,16 @@ public class ARNavigationActivity extends AppCompatActivity {
 
         isNavigating = false;
 
+        if (routeRequest != null) {
+            routeRequest.cancel();
+            routeRequest = null;
+        }
+
+        // Conserver la route lors d'une recréation (rotation)
+        if (isFinishing() && routeId != -1) {
+            RouteStore.remove(routeId);
+        }
+
         if (updateHandler != null && updateRunnable != null) {
             updateHandler.removeCallbacks(updateRunnable);
         }
@@ -0,0 +1,150 @@
+package com.example.tp7.ar;
+
+import com.google.ar.sceneform.Node;
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.Material;
+import com.google.ar.sceneform.rendering.ModelRenderable;
+import com.google.ar.sceneform.rendering.ShapeFactory;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Réserve de nodes AR réutilisables : flèches (par type) et lignes au sol
+ * Un node rendu à la réserve est détaché de la scène ; le reprendre ne fait que
+ * le replacer, sans allocation ni nouveau maillage (recalcul d'itinéraire, streaming)
+ */
+final class ARNodePool {
+
+    private static final float LINE_RADIUS = 0.03f;
+
+    // Types de flèches préparés à l'avance
+    private static final ARWaypoint.WaypointType[] ARROW_TYPES = {
+            ARWaypoint.WaypointType.CONTINUE,
+            ARWaypoint.WaypointType.TURN_LEFT,
+            ARWaypoint.WaypointType.TURN_RIGHT
+    };
+
+    private final Arrow3DRenderer arrowRenderer;
+    private final ARSceneManager sceneManager;
+
+    private final Map<ARWaypoint.WaypointType, ArrayDeque<Node>> freeArrows =
+            new EnumMap<>(ARWaypoint.WaypointType.class);
+    private final ArrayDeque<Node> freeLines = new ArrayDeque<>();
+
+    // Cylindre de hauteur 1 partagé par toutes les lignes, étiré par l'échelle du node
+    private ModelRenderable lineRenderable;
+
+    ARNodePool(Arrow3DRenderer arrowRenderer, ARSceneManager sceneManager) {
+        this.arrowRenderer = arrowRenderer;
+        this.sceneManager = sceneManager;
+    }
+
+    /**
+     * Complète la réserve jusqu'à arrowsPerType flèches par type et lines lignes ;
+     * sans effet tant que les matériaux ne sont pas prêts
+     */
+    void prewarm(int arrowsPerType, int lines) {
+        if (arrowRenderer.isMaterialsReady()) {
+            for (ARWaypoint.WaypointType type : ARROW_TYPES) {
+                ArrayDeque<Node> free = freeArrows(type);
+                while (free.size() < arrowsPerType) {
+                    free.push(arrowRenderer.createArrow(type, Vector3.zero(), 0));
+                }
+            }
+        }
+        if (getLineRenderable() != null) {
+            while (freeLines.size() < lines) {
+                freeLines.push(createLineNode());
+            }
+        }
+    }
+
+    /**
+     * Node de flèche placé et orienté, null si les maillages ne sont pas prêts
+     */
+    Node acquireArrow(ARWaypoint.WaypointType type, Vector3 position, float rotation) {
+        Node node = freeArrows(type).poll();
+        if (node == null) {
+            if (!arrowRenderer.isMaterialsReady()) {
+                return null;
+            }
+            return arrowRenderer.createArrow(type, position, rotation);
+        }
+        arrowRenderer.placeArrow(node, type, position, rotation);
+        node.setEnabled(true);
+        return node;
+    }
+
+    void releaseArrow(ARWaypoint.WaypointType type, Node node) {
+        node.setParent(null);
+        freeArrows(type).push(node);
+    }
+
+    /**
+     * Node de ligne entre start et end, null si le matériau n'est pas prêt
+     */
+    Node acquireLine(Vector3 start, Vector3 end) {
+        Node node = freeLines.poll();
+        if (node == null) {
+            if (getLineRenderable() == null) {
+                return null;
+            }
+            node = createLineNode();
+        }
+
+        Vector3 difference = Vector3.subtract(end, start);
+        node.setLocalPosition(Vector3.add(start, difference.scaled(0.5f)));
+        node.setLocalRotation(Quaternion.rotationBetweenVectors(new Vector3(0, 1, 0), difference.normalized()));
+        node.setLocalScale(new Vector3(1, difference.length(), 1));
+        node.setEnabled(true);
+        return node;
+    }
+
+    void releaseLine(Node node) {
+        node.setParent(null);
+        freeLines.push(node);
+    }
+
+    /**
+     * Nodes libres pour un type ; les types dessinés en flèche droite (départ,
+     * point intermédiaire, continuer) partagent la même réserve
+     */
+    private ArrayDeque<Node> freeArrows(ARWaypoint.WaypointType type) {
+        ARWaypoint.WaypointType key;
+        switch (type) {
+            case TURN_LEFT:
+            case TURN_RIGHT:
+            case DESTINATION:
+                key = type;
+                break;
+            default:
+                key = ARWaypoint.WaypointType.CONTINUE;
+                break;
+        }
+        ArrayDeque<Node> free = freeArrows.get(key);
+        if (free == null) {
+            free = new ArrayDeque<>();
+            freeArrows.put(key, free);
+        }
+        return free;
+    }
+
+    private Node createLineNode() {
+        Node node = new Node();
+        node.setRenderable(lineRenderable);
+        return node;
+    }
+
+    private ModelRenderable getLineRenderable() {
+        if (lineRenderable == null) {
+            Material material = sceneManager.getLineMaterial();
+            if (material != null) {
+                lineRenderable = ShapeFactory.makeCylinder(LINE_RADIUS, 1f, Vector3.zero(), material);
+            }
+        }
+        return lineRenderable;
+    }
+}
@@ -2,17 +2,18 @@
 package com.example.tp7.ar;
 
 import android.content.Context;
+import android.location.Location;
 import android.util.Log;
 
+import com.example.tp7.route.RouteDistanceTable;
+import com.example.tp7.route.RouteGeometry;
 import com.example.tp7.utils.GeoUtils;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.ar.sceneform.AnchorNode;
 import com.google.ar.sceneform.Node;
 import com.google.ar.sceneform.Scene;
 import com.google.ar.sceneform.math.Vector3;
-import com.google.ar.sceneform.rendering.Material;
 import com.google.ar.sceneform.rendering.ModelRenderable;
-import com.google.ar.sceneform.rendering.ShapeFactory;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,9 +31,33 @@ public class ARRouteRenderer {
     private AnchorNode anchorNode;
     private List<ARWaypoint> arWaypoints;
     private List<DirectionalArrow> directionalArrows;
+    private List<RouteLine> routeLines;
+
+    // Flèches ayant un node dans la scène : [streamedStart, streamedEnd) de directionalArrows
+    private float[] arrowDistances = new float[0];
+    private int streamedStart;
+    private int streamedEnd;
+    // Lignes ayant un node : [streamedLineStart, streamedLineEnd) de routeLines
+    private float[] lineStartDistances = new float[0];
+    private float[] lineEndDistances = new float[0];
+    private int streamedLineStart;
+    private int streamedLineEnd;
+    // Nodes réutilisés d'un itinéraire à l'autre et au fil du streaming
+    private final ARNodePool nodePool;
 
     private static final float ARROW_DISTANCE = 8f;  // Flèches tous les 8m
     private static final float MAX_RENDER_DISTANCE = 100f;
+    // Niveaux de détail : flèches complètes jusqu'à FULL_DETAIL_DISTANCE, simplifiées
+    // jusqu'à MAX_RENDER_DISTANCE, masquées au-delà ; marge contre le clignotement aux seuils
+    private static final float FULL_DETAIL_DISTANCE = 30f;
+    private static final float LOD_HYSTERESIS = 5f;
+    // Fenêtre de la route (distance le long du parcours) dont les flèches ont un node
+    private static final float STREAM_BEHIND_DISTANCE = 20f;
+    private static final float STREAM_AHEAD_DISTANCE = MAX_RENDER_DISTANCE + 2 * LOD_HYSTERESIS;
+    private static final int MAX_STREAMED_ARROWS = 40;
+    // Nodes préparés dans la réserve à la création d'un itinéraire
+    private static final int POOL_ARROWS_PER_TYPE = 8;
+    private static final int POOL_LINES = 8;
     private static final float WAYPOINT_SPACING = 20f;
     private static final float OBJECT_HEIGHT = 0.2f;
 
@@ -40,13 +65,19 @@ public class ARRouteRenderer {
     private float totalRouteDistance = 0f;
     private float remainingDistance = 0f;
 
+    // Distances cumulées entre waypoints (distance restante en O(1))
+    private RouteDistanceTable waypointDistances;
+    private final float[] distanceResult = new float[1];
+
     public ARRouteRenderer(Context context, ARSceneManager sceneManager) {
         this.context = context;
         this.sceneManager = sceneManager;
         this.scene = sceneManager.getScene();
         this.arWaypoints = new ArrayList<>();
         this.directionalArrows = new ArrayList<>();
+        this.routeLines = new ArrayList<>();
         this.arrow3DRenderer = new Arrow3DRenderer(context);
+        this.nodePool = new ARNodePool(arrow3DRenderer, sceneManager);
     }
 
     public void setOrigin(LatLng origin) {
@@ -60,7 +91,7 @@ public class ARRouteRenderer {
         Log.d(TAG, "Origine AR définie à: " + origin);
     }
 
-    public void createRoute(List<LatLng> gpsRoute) {
+    public void createRoute(RouteGeometry gpsRoute) {
         if (originGPS == null) {
             Log.e(TAG, "Origine non définie!");
             return;
@@ -69,16 +100,16 @@ public class ARRouteRenderer {
         clearRoute();
 
         // Calculer la distance totale
-        totalRouteDistance = calculateTotalDistance(gpsRoute);
+        totalRouteDistance = (float) new RouteDistanceTable(gpsRoute).getTotalDistance();
 
-        List<LatLng> simplifiedRoute = simplifyRoute(gpsRoute, WAYPOINT_SPACING);
+        RouteGeometry simplifiedRoute = simplifyRoute(gpsRoute, WAYPOINT_SPACING);
 
         Log.d(TAG, "Création route: " + simplifiedRoute.size() + " waypoints, " +
                 String.format("%.2f km", totalRouteDistance / 1000));
 
         // Créer les waypoints
         for (int i = 0; i < simplifiedRoute.size(); i++) {
-            LatLng gpsPoint = simplifiedRoute.get(i);
+            LatLng gpsPoint = simplifiedRoute.getLatLng(i);
 
             ARWaypoint.WaypointType type;
             if (i == 0) {
@@ -96,6 +127,7 @@ public class ARRouteRenderer {
 
             arWaypoints.add(waypoint);
         }
+        waypointDistances = new RouteDistanceTable(simplifiedRoute);
 
         // Créer les flèches 3D directionnelles
         createDirectionalArrows(simplifiedRoute);
@@ -103,35 +135,28 @@ public class ARRouteRenderer {
         // Créer les lignes au sol
         createRouteLines();
 
-        Log.d(TAG, directionalArrows.size() + " flèches 3D créées");
-    }
+        // Nodes des objets proches du départ ; les suivants au fil de la progression
+        nodePool.prewarm(POOL_ARROWS_PER_TYPE, POOL_LINES);
+        updateStreamedObjects(0f);
 
-    /**
-     * Calcule la distance totale de la route
-     */
-    private float calculateTotalDistance(List<LatLng> route) {
-        float total = 0f;
-        for (int i = 0; i < route.size() - 1; i++) {
-            total += GeoUtils.distanceBetween(route.get(i), route.get(i + 1));
-        }
-        return total;
+        Log.d(TAG, directionalArrows.size() + " flèches 3D le long de la route, " +
+                (streamedEnd - streamedStart) + " dans la scène");
     }
 
     /**
      * Détermine le type de waypoint basé sur l'angle de virage
      */
-    private ARWaypoint.WaypointType determineWaypointType(List<LatLng> route, int index) {
+    private ARWaypoint.WaypointType determineWaypointType(RouteGeometry route, int index) {
         if (index <= 0 || index >= route.size() - 1) {
             return ARWaypoint.WaypointType.WAYPOINT;
         }
 
-        LatLng prev = route.get(index - 1);
-        LatLng current = route.get(index);
-        LatLng next = route.get(index + 1);
+        double[] lats = route.getLatitudes();
+        double[] lngs = route.getLongitudes();
 
         // Calculer le bearing (azimut) entre les segments
-        double bearing1 = calculateBearing(prev, current);
-        double bearing2 = calculateBearing(current, next);
+        double bearing1 = calculateBearing(lats[index - 1], lngs[index - 1], lats[index], lngs[index]);
+        double bearing2 = calculateBearing(lats[index], lngs[index], lats[index + 1], lngs[index + 1]);
 
         // Calculer l'angle de virage
         double turnAngle = bearing2 - bearing1;
@@ -153,10 +178,10 @@ public class ARRouteRenderer {
     /**
      * Calcule le bearing (azimut) entre deux points GPS
      */
-    private double calculateBearing(LatLng from, LatLng to) {
-        double lat1 = Math.toRadians(from.latitude);
-        double lat2 = Math.toRadians(to.latitude);
-        double dLon = Math.toRadians(to.longitude - from.longitude);
+    private double calculateBearing(double fromLat, double fromLng, double toLat, double toLng) {
+        double lat1 = Math.toRadians(fromLat);
+        double lat2 = Math.toRadians(toLat);
+        double dLon = Math.toRadians(toLng - fromLng);
 
         double y = Math.sin(dLon) * Math.cos(lat2);
         double x = Math.cos(lat1) * Math.sin(lat2) -
@@ -167,27 +192,28 @@ public class ARRouteRenderer {
     }
 
     /**
-     * Crée des flèches 3D directionnelles le long du parcours
+     * Place les flèches 3D directionnelles le long du parcours (sans node :
+     * voir updateStreamedObjects)
      */
-    private void createDirectionalArrows(List<LatLng> route) {
+    private void createDirectionalArrows(RouteGeometry route) {
         directionalArrows.clear();
 
-        for (int i = 0; i < route.size() - 1; i++) {
-            LatLng start = route.get(i);
-            LatLng end = route.get(i + 1);
+        double[] lats = route.getLatitudes();
+        double[] lngs = route.getLongitudes();
 
-            float segmentDistance = GeoUtils.distanceBetween(start, end);
+        for (int i = 0; i < route.size() - 1; i++) {
+            float segmentDistance = distanceBetween(lats[i], lngs[i], lats[i + 1], lngs[i + 1]);
             int numArrows = Math.max(1, (int)(segmentDistance / ARROW_DISTANCE));
 
             // Calculer le bearing pour ce segment
-            double bearing = calculateBearing(start, end);
+            double bearing = calculateBearing(lats[i], lngs[i], lats[i + 1], lngs[i + 1]);
 
             for (int j = 0; j <= numArrows; j++) {
                 float fraction = j / (float)Math.max(numArrows, 1);
 
                 // Interpoler la position GPS
-                double lat = start.latitude + (end.latitude - start.latitude) * fraction;
-                double lng = start.longitude + (end.longitude - start.longitude) * fraction;
+                double lat = lats[i] + (lats[i + 1] - lats[i]) * fraction;
+                double lng = lngs[i] + (lngs[i + 1] - lngs[i]) * fraction;
                 LatLng arrowPos = new LatLng(lat, lng);
 
                 // Convertir en position AR
@@ -203,43 +229,112 @@ public class ARRouteRenderer {
                         (float)bearing,
                         arrowType
                 );
+                arrow.routeDistance = (float) waypointDistances.distanceAt(i, fraction);
 
-                create3DArrowNode(arrow);
                 directionalArrows.add(arrow);
             }
         }
+
+        arrowDistances = new float[directionalArrows.size()];
+        for (int i = 0; i < arrowDistances.length; i++) {
+            arrowDistances[i] = directionalArrows.get(i).routeDistance;
+        }
     }
 
     /**
-     * Crée un node de flèche 3D avec le bon type
+     * Ne garde des nodes que pour les flèches et lignes de la fenêtre [progress - STREAM_BEHIND_DISTANCE,
+     * progress + STREAM_AHEAD_DISTANCE] (au plus MAX_STREAMED_ARROWS flèches) : les nodes des
+     * objets dépassés retournent dans la réserve et servent à ceux qui entrent dans la fenêtre
+     * @param progress Distance parcourue le long de la route (mètres)
      */
-    private void create3DArrowNode(DirectionalArrow arrow) {
-        if (!arrow3DRenderer.isMaterialsReady()) {
-            // Attendre que les matériaux soient prêts
-            new android.os.Handler().postDelayed(() -> create3DArrowNode(arrow), 100);
-            return;
+    private void updateStreamedObjects(float progress) {
+        float from = progress - STREAM_BEHIND_DISTANCE;
+        float to = progress + STREAM_AHEAD_DISTANCE;
+
+        // Libérer d'abord : les nodes rendus servent aux objets entrants
+        int start = firstIndexAtOrAfter(arrowDistances, from);
+        int end = Math.min(firstIndexAtOrAfter(arrowDistances, to), start + MAX_STREAMED_ARROWS);
+        for (int i = streamedStart; i < streamedEnd; i++) {
+            if (i < start || i >= end) {
+                releaseArrowNode(directionalArrows.get(i));
+            }
         }
 
-        Node arrowNode = null;
+        // Lignes qui recouvrent la fenêtre (fin >= from et début < to)
+        int lineStart = firstIndexAtOrAfter(lineEndDistances, from);
+        int lineEnd = Math.max(lineStart, firstIndexAtOrAfter(lineStartDistances, to));
+        for (int i = streamedLineStart; i < streamedLineEnd; i++) {
+            if (i < lineStart || i >= lineEnd) {
+                releaseLineNode(routeLines.get(i));
+            }
+        }
 
-        switch (arrow.type) {
-            case TURN_LEFT:
-                arrowNode = arrow3DRenderer.createLeftArrow(arrow.arPosition, arrow.bearing);
-                break;
-            case TURN_RIGHT:
-                arrowNode = arrow3DRenderer.createRightArrow(arrow.arPosition, arrow.bearing);
-                break;
-            case DESTINATION:
-                arrowNode = arrow3DRenderer.createDestinationMarker(arrow.arPosition);
-                break;
-            default:
-                arrowNode = arrow3DRenderer.createStraightArrow(arrow.arPosition, arrow.bearing);
-                break;
+        for (int i = start; i < end; i++) {
+            DirectionalArrow arrow = directionalArrows.get(i);
+            if (arrow.sceneNode == null) {
+                create3DArrowNode(arrow);
+            }
         }
+        for (int i = lineStart; i < lineEnd; i++) {
+            RouteLine line = routeLines.get(i);
+            if (line.node == null) {
+                line.node = nodePool.acquireLine(line.start, line.end);
+                if (line.node != null) {
+                    line.node.setParent(anchorNode);
+                    line.detailLevel = DetailLevel.FULL;
+                }
+            }
+        }
+
+        streamedStart = start;
+        streamedEnd = end;
+        streamedLineStart = lineStart;
+        streamedLineEnd = lineEnd;
+    }
 
+    /**
+     * Indice du premier élément >= value dans un tableau trié
+     */
+    private static int firstIndexAtOrAfter(float[] values, float value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void releaseArrowNode(DirectionalArrow arrow) {
+        if (arrow.sceneNode != null) {
+            nodePool.releaseArrow(arrow.type, arrow.sceneNode);
+            arrow.sceneNode = null;
+            arrow.detailLevel = null;
+        }
+    }
+
+    private void releaseLineNode(RouteLine line) {
+        if (line.node != null) {
+            nodePool.releaseLine(line.node);
+            line.node = null;
+            line.detailLevel = null;
+        }
+    }
+
+    /**
+     * Place un node de flèche 3D (pris dans la réserve) avec le bon type
+     */
+    private void create3DArrowNode(DirectionalArrow arrow) {
+        // Null si les matériaux ne sont pas prêts : node créé à une prochaine mise à jour
+        Node arrowNode = nodePool.acquireArrow(arrow.type, arrow.arPosition, arrow.bearing);
         if (arrowNode != null) {
             arrowNode.setParent(anchorNode);
             arrow.sceneNode = arrowNode;
+            arrow.detailLevel = DetailLevel.FULL;
         }
     }
 
@@ -254,40 +349,33 @@ public class ARRouteRenderer {
     }
 
     /**
-     * Crée les lignes au sol entre waypoints
+     * Place les lignes au sol entre waypoints (sans node : voir updateStreamedObjects)
      */
     private void createRouteLines() {
-        for (int i = 0; i < arWaypoints.size() - 1; i++) {
-            Vector3 start = arWaypoints.get(i).getArPosition();
-            Vector3 end = arWaypoints.get(i + 1).getArPosition();
-            createLine(start, end);
+        int count = Math.max(0, arWaypoints.size() - 1);
+        lineStartDistances = new float[count];
+        lineEndDistances = new float[count];
+        for (int i = 0; i < count; i++) {
+            routeLines.add(new RouteLine(arWaypoints.get(i).getArPosition(),
+                    arWaypoints.get(i + 1).getArPosition()));
+            lineStartDistances[i] = (float) waypointDistances.distanceAt(i);
+            lineEndDistances[i] = (float) waypointDistances.distanceAt(i + 1);
         }
     }
 
-    private void createLine(Vector3 start, Vector3 end) {
-        Vector3 difference = Vector3.subtract(end, start);
-        Vector3 center = Vector3.add(start, difference.scaled(0.5f));
-        float length = difference.length();
-
-        ModelRenderable lineRenderable = ShapeFactory.makeCylinder(
-                0.03f,
-                length,
-                Vector3.zero(),
-                sceneManager.getLineMaterial()
-        );
-
-        Node lineNode = new Node();
-        lineNode.setParent(anchorNode);
-        lineNode.setLocalPosition(center);
-        lineNode.setRenderable(lineRenderable);
-
-        Vector3 direction = difference.normalized();
-        com.google.ar.sceneform.math.Quaternion rotation =
-                com.google.ar.sceneform.math.Quaternion.rotationBetweenVectors(
-                        new Vector3(0, 1, 0),
-                        direction
-                );
-        lineNode.setLocalRotation(rotation);
+    /**
+     * Niveau de détail pour une distance, avec hystérésis : un objet ne change de
+     * niveau qu'une fois le seuil dépassé de LOD_HYSTERESIS dans un sens ou l'autre
+     */
+    static DetailLevel detailLevelFor(DetailLevel current, float distance) {
+        float fullLimit = FULL_DETAIL_DISTANCE +
+                (current == DetailLevel.FULL ? LOD_HYSTERESIS : -LOD_HYSTERESIS);
+        float hiddenLimit = MAX_RENDER_DISTANCE +
+                (current == DetailLevel.HIDDEN ? -LOD_HYSTERESIS : LOD_HYSTERESIS);
+        if (distance <= fullLimit) {
+            return DetailLevel.FULL;
+        }
+        return distance <= hiddenLimit ? DetailLevel.SIMPLIFIED : DetailLevel.HIDDEN;
     }
 
     /**
@@ -330,22 +418,13 @@ public class ARRouteRenderer {
                 closestWaypoint.getGpsPosition()
         );
 
-        // Ajouter la distance jusqu'au waypoint le plus proche
-        remainingDistance = distToClosestWaypoint;
+        // Distance jusqu'au waypoint le plus proche + distance cumulée jusqu'à la fin
+        remainingDistance = distToClosestWaypoint + (float) (waypointDistances.getTotalDistance()
+                - waypointDistances.distanceAt(closestWaypointIndex));
 
-        // 3. Ajouter toutes les distances entre les waypoints suivants
+        // 3. Mettre à jour la visibilité des waypoints suivants
         for (int i = closestWaypointIndex; i < arWaypoints.size() - 1; i++) {
             ARWaypoint current = arWaypoints.get(i);
-            ARWaypoint next = arWaypoints.get(i + 1);
-
-            float segmentDist = GeoUtils.distanceBetween(
-                    current.getGpsPosition(),
-                    next.getGpsPosition()
-            );
-
-            remainingDistance += segmentDist;
-
-            // Mettre à jour la visibilité des waypoints
             current.updateDistance(userPosition);
             current.setVisible(current.shouldBeVisible(MAX_RENDER_DISTANCE));
         }
@@ -357,10 +436,16 @@ public class ARRouteRenderer {
             lastWaypoint.setVisible(lastWaypoint.shouldBeVisible(MAX_RENDER_DISTANCE));
         }
 
-        // 4. Mettre à jour les flèches
-        for (DirectionalArrow arrow : directionalArrows) {
+        // 4. Nodes des objets autour de la position sur la route, puis niveau de détail
+        updateStreamedObjects(Math.max(0f, (float) waypointDistances.getTotalDistance() - remainingDistance));
+        for (int i = streamedStart; i < streamedEnd; i++) {
+            DirectionalArrow arrow = directionalArrows.get(i);
             arrow.updateDistance(userPosition);
-            arrow.setVisible(arrow.shouldBeVisible(MAX_RENDER_DISTANCE));
+            arrow.setDetailLevel(detailLevelFor(arrow.detailLevel, arrow.distanceFromUser), arrow3DRenderer);
+        }
+        for (int i = streamedLineStart; i < streamedLineEnd; i++) {
+            RouteLine line = routeLines.get(i);
+            line.setDetailLevel(detailLevelFor(line.detailLevel, line.distanceTo(userPosition)));
         }
 
         // 5. Log pour debug
@@ -419,7 +504,9 @@ public class ARRouteRenderer {
         DirectionalArrow closest = null;
         float minDistance = Float.MAX_VALUE;
 
-        for (DirectionalArrow arrow : directionalArrows) {
+        // Flèches de la fenêtre courante uniquement (autour de la position sur la route)
+        for (int i = streamedStart; i < streamedEnd; i++) {
+            DirectionalArrow arrow = directionalArrows.get(i);
             Vector3 toArrow = Vector3.subtract(arrow.arPosition, userPosition);
             float distance = toArrow.length();
 
@@ -477,11 +564,25 @@ public class ARRouteRenderer {
             waypoint.dispose();
         }
         arWaypoints.clear();
+        waypointDistances = null;
 
-        for (DirectionalArrow arrow : directionalArrows) {
-            arrow.dispose();
+        // Nodes rendus à la réserve : le prochain itinéraire les replace
+        for (int i = streamedStart; i < streamedEnd; i++) {
+            releaseArrowNode(directionalArrows.get(i));
         }
         directionalArrows.clear();
+        arrowDistances = new float[0];
+        streamedStart = 0;
+        streamedEnd = 0;
+
+        for (int i = streamedLineStart; i < streamedLineEnd; i++) {
+            releaseLineNode(routeLines.get(i));
+        }
+        routeLines.clear();
+        lineStartDistances = new float[0];
+        lineEndDistances = new float[0];
+        streamedLineStart = 0;
+        streamedLineEnd = 0;
 
         if (anchorNode != null) {
             List<Node> children = new ArrayList<>(anchorNode.getChildren());
@@ -493,33 +594,40 @@ public class ARRouteRenderer {
         Log.d(TAG, "Route AR nettoyée");
     }
 
-    private List<LatLng> simplifyRoute(List<LatLng> route, float spacing) {
-        if (route.isEmpty()) return new ArrayList<>();
+    private RouteGeometry simplifyRoute(RouteGeometry route, float spacing) {
+        if (route.isEmpty()) return RouteGeometry.EMPTY;
+
+        double[] lats = route.getLatitudes();
+        double[] lngs = route.getLongitudes();
+        int last = route.size() - 1;
 
-        List<LatLng> simplified = new ArrayList<>();
-        simplified.add(route.get(0));
+        RouteGeometry.Builder simplified = new RouteGeometry.Builder();
+        simplified.add(lats[0], lngs[0]);
+        int lastAdded = 0;
 
         float accumulatedDistance = 0;
 
         for (int i = 1; i < route.size(); i++) {
-            LatLng prev = route.get(i - 1);
-            LatLng current = route.get(i);
-
-            float distance = GeoUtils.distanceBetween(prev, current);
+            float distance = distanceBetween(lats[i - 1], lngs[i - 1], lats[i], lngs[i]);
             accumulatedDistance += distance;
 
             if (accumulatedDistance >= spacing) {
-                simplified.add(current);
+                simplified.add(lats[i], lngs[i]);
+                lastAdded = i;
                 accumulatedDistance = 0;
             }
         }
 
-        LatLng last = route.get(route.size() - 1);
-        if (!simplified.get(simplified.size() - 1).equals(last)) {
-            simplified.add(last);
+        if (lastAdded != last && (lats[lastAdded] != lats[last] || lngs[lastAdded] != lngs[last])) {
+            simplified.add(lats[last], lngs[last]);
         }
 
-        return simplified;
+        return simplified.build();
+    }
+
+    private float distanceBetween(double lat1, double lng1, double lat2, double lng2) {
+        Location.distanceBetween(lat1, lng1, lat2, lng2, distanceResult);
+        return distanceResult[0];
     }
 
     // Getters
@@ -535,7 +643,9 @@ public class ARRouteRenderer {
         float bearing; // Angle en degrés (0-360)
         ARWaypoint.WaypointType type;
         Node sceneNode;
+        DetailLevel detailLevel;
         float distanceFromUser;
+        float routeDistance; // Distance depuis le départ le long de la route
 
         DirectionalArrow(LatLng gps, Vector3 ar, float bearing, ARWaypoint.WaypointType type) {
             this.gpsPosition = gps;
@@ -548,20 +658,65 @@ public class ARRouteRenderer {
             distanceFromUser = Vector3.subtract(arPosition, userPosition).length();
         }
 
-        boolean shouldBeVisible(float maxDistance) {
-            return distanceFromUser <= maxDistance;
+        /**
+         * Change le maillage du node (complet ou simplifié) ou le masque
+         */
+        void setDetailLevel(DetailLevel level, Arrow3DRenderer renderer) {
+            if (sceneNode == null || level == detailLevel) {
+                return;
+            }
+            if (level != DetailLevel.HIDDEN) {
+                ModelRenderable renderable = level == DetailLevel.FULL
+                        ? renderer.getRenderable(type)
+                        : renderer.getSimplifiedRenderable(type);
+                sceneNode.setRenderable(renderable);
+            }
+            sceneNode.setEnabled(level != DetailLevel.HIDDEN);
+            detailLevel = level;
         }
+    }
 
-        void setVisible(boolean visible) {
-            if (sceneNode != null) {
-                sceneNode.setEnabled(visible);
+    enum DetailLevel {
+        FULL,       // Géométrie complète
+        SIMPLIFIED, // Un seul rectangle
+        HIDDEN      // Non affiché
+    }
+
+    /**
+     * Ligne au sol entre deux waypoints : affichée ou masquée selon la distance
+     * (node pris dans la réserve tant qu'elle est dans la fenêtre de streaming)
+     */
+    private static class RouteLine {
+        final Vector3 start;
+        final Vector3 end;
+        Node node;
+        DetailLevel detailLevel;
+
+        RouteLine(Vector3 start, Vector3 end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Distance au point le plus proche du segment (une ligne longue reste
+         * affichée tant que l'utilisateur est dessus ou à côté)
+         */
+        float distanceTo(Vector3 position) {
+            Vector3 segment = Vector3.subtract(end, start);
+            float lengthSquared = Vector3.dot(segment, segment);
+            float t = 0f;
+            if (lengthSquared > 0f) {
+                t = Vector3.dot(Vector3.subtract(position, start), segment) / lengthSquared;
+                t = Math.max(0f, Math.min(1f, t));
             }
+            Vector3 nearest = Vector3.add(start, segment.scaled(t));
+            return Vector3.subtract(position, nearest).length();
         }
 
-        void dispose() {
-            if (sceneNode != null) {
-                sceneNode.setParent(null);
-                sceneNode = null;
+        void setDetailLevel(DetailLevel level) {
+            if (node != null && level != detailLevel) {
+                node.setEnabled(level != DetailLevel.HIDDEN);
+                detailLevel = level;
             }
         }
     }
@@ -3,6 +3,8 @@
 package com.example.tp7.ar;
 
 import android.content.Context;
+import android.util.Log;
+
 import com.google.ar.sceneform.Node;
 import com.google.ar.sceneform.math.Quaternion;
 import com.google.ar.sceneform.math.Vector3;
@@ -12,15 +14,38 @@ import com.google.ar.sceneform.rendering.ModelRenderable;
 import com.google.ar.sceneform.rendering.ShapeFactory;
 import com.google.ar.sceneform.rendering.Color;
 
+import java.util.function.Consumer;
+
 /**
  * Créateur de flèches 3D détaillées pour la navigation AR
+ * Chaque type de flèche est un seul maillage (pavés fusionnés par ArrowMesh),
+ * construit une fois dès que son matériau est prêt puis partagé par toutes les
+ * flèches de ce type : une flèche = un node et un appel de dessin, et le coût GPU
+ * d'une route ne dépend plus de sa longueur
  */
 public class Arrow3DRenderer {
 
+    private static final String TAG = "Arrow3DRenderer";
+
+    private static final int CURVE_SEGMENTS = 5;
+    private static final float CURVE_STEP = 18f; // 90° total en 5 segments
+    private static final float CURVE_RADIUS = 0.5f;
+
     private Material blueMaterial;
     private Material yellowMaterial;
     private Material greenMaterial;
 
+    // Maillages partagés
+    private ModelRenderable straightArrow;
+    private ModelRenderable leftArrow;
+    private ModelRenderable rightArrow;
+    private ModelRenderable destinationCylinder;
+
+    // Versions simplifiées (emprise du maillage complet, un seul rectangle) pour la distance moyenne
+    private ModelRenderable straightQuad;
+    private ModelRenderable leftQuad;
+    private ModelRenderable rightQuad;
+
     public Arrow3DRenderer(Context context) {
         createMaterials(context);
     }
@@ -28,151 +53,163 @@ public class Arrow3DRenderer {
     private void createMaterials(Context context) {
         // Matériau bleu pour flèches normales
         MaterialFactory.makeOpaqueWithColor(context, new Color(33, 150, 243, 255))
-                .thenAccept(material -> blueMaterial = material);
+                .thenAccept(material -> {
+                    blueMaterial = material;
+                    ArrowMesh straight = createStraightMesh();
+                    buildRenderable(straight.footprintQuad(), blueMaterial, r -> straightQuad = r);
+                    buildRenderable(straight, blueMaterial, r -> straightArrow = r);
+                });
 
         // Matériau jaune pour virages
         MaterialFactory.makeOpaqueWithColor(context, new Color(255, 193, 7, 255))
-                .thenAccept(material -> yellowMaterial = material);
+                .thenAccept(material -> {
+                    yellowMaterial = material;
+                    ArrowMesh left = createTurnMesh(-1);
+                    ArrowMesh right = createTurnMesh(1);
+                    buildRenderable(left.footprintQuad(), yellowMaterial, r -> leftQuad = r);
+                    buildRenderable(right.footprintQuad(), yellowMaterial, r -> rightQuad = r);
+                    buildRenderable(left, yellowMaterial, r -> leftArrow = r);
+                    buildRenderable(right, yellowMaterial, r -> rightArrow = r);
+                });
 
         // Matériau vert pour destination
         MaterialFactory.makeOpaqueWithColor(context, new Color(76, 175, 80, 255))
-                .thenAccept(material -> greenMaterial = material);
+                .thenAccept(material -> {
+                    greenMaterial = material;
+                    destinationCylinder = ShapeFactory.makeCylinder(
+                            0.3f,
+                            1.5f,
+                            new Vector3(0, 0.75f, 0),
+                            greenMaterial
+                    );
+                });
     }
 
-    /**
-     * Crée une flèche 3D droite (continuer tout droit)
-     */
-    public Node createStraightArrow(Vector3 position, float rotation) {
-        if (blueMaterial == null) return null;
-
-        Node arrowNode = new Node();
-        arrowNode.setLocalPosition(position);
-
-        // Corps de la flèche (rectangle allongé)
-        ModelRenderable body = ShapeFactory.makeCube(
-                new Vector3(0.2f, 0.05f, 0.8f),
-                Vector3.zero(),
-                blueMaterial
-        );
-
-        // Pointe de la flèche (triangle)
-        ModelRenderable tip = ShapeFactory.makeCube(
-                new Vector3(0.4f, 0.05f, 0.3f),
-                new Vector3(0, 0, 0.55f),
-                blueMaterial
-        );
-
-        Node bodyNode = new Node();
-        bodyNode.setRenderable(body);
-        bodyNode.setParent(arrowNode);
+    private static void buildRenderable(ArrowMesh mesh, Material material, Consumer<ModelRenderable> target) {
+        ModelRenderable.builder()
+                .setSource(mesh.build(material))
+                .build()
+                .thenAccept(target)
+                .exceptionally(throwable -> {
+                    Log.e(TAG, "Erreur création maillage flèche", throwable);
+                    return null;
+                });
+    }
 
-        Node tipNode = new Node();
-        tipNode.setRenderable(tip);
-        tipNode.setParent(arrowNode);
+    private static ArrowMesh createStraightMesh() {
+        return new ArrowMesh()
+                // Corps de la flèche (rectangle allongé)
+                .addBox(new Vector3(0.2f, 0.05f, 0.8f), Vector3.zero(), 0)
+                // Pointe de la flèche
+                .addBox(new Vector3(0.4f, 0.05f, 0.3f), new Vector3(0, 0, 0.55f), 0);
+    }
 
-        // Rotation pour orienter vers la direction
-        Quaternion rot = Quaternion.axisAngle(new Vector3(0, 1, 0), rotation);
-        arrowNode.setLocalRotation(rot);
+    /**
+     * Flèche courbe : corps en segments sur un quart de cercle, puis la pointe
+     * @param side -1 pour la gauche, 1 pour la droite
+     */
+    private static ArrowMesh createTurnMesh(int side) {
+        ArrowMesh mesh = new ArrowMesh();
+        for (int i = 0; i < CURVE_SEGMENTS; i++) {
+            float angle = i * CURVE_STEP;
+            float x = side * CURVE_RADIUS * (float) Math.sin(Math.toRadians(angle));
+            float z = CURVE_RADIUS * (1 - (float) Math.cos(Math.toRadians(angle)));
+            mesh.addBox(new Vector3(0.15f, 0.05f, 0.25f), new Vector3(x, 0, z), side * angle);
+        }
+        return mesh.addBox(new Vector3(0.35f, 0.05f, 0.25f), new Vector3(side * 0.5f, 0, 0.5f), side * 90f);
+    }
 
-        return arrowNode;
+    /**
+     * Maillage complet d'un type de flèche (null tant qu'il n'est pas prêt)
+     */
+    public ModelRenderable getRenderable(ARWaypoint.WaypointType type) {
+        switch (type) {
+            case TURN_LEFT:
+                return leftArrow;
+            case TURN_RIGHT:
+                return rightArrow;
+            case DESTINATION:
+                return destinationCylinder;
+            default:
+                return straightArrow;
+        }
     }
 
     /**
-     * Crée une flèche 3D courbe GAUCHE
+     * Maillage simplifié d'un type de flèche ; le marqueur de destination,
+     * déjà un simple cylindre, n'en a pas d'autre
      */
-    public Node createLeftArrow(Vector3 position, float rotation) {
-        if (yellowMaterial == null) return null;
+    public ModelRenderable getSimplifiedRenderable(ARWaypoint.WaypointType type) {
+        switch (type) {
+            case TURN_LEFT:
+                return leftQuad;
+            case TURN_RIGHT:
+                return rightQuad;
+            case DESTINATION:
+                return destinationCylinder;
+            default:
+                return straightQuad;
+        }
+    }
 
-        Node arrowNode = new Node();
+    /**
+     * Replace un node de flèche déjà créé (node recyclé) : maillage complet,
+     * position et orientation, comme à sa création
+     */
+    public void placeArrow(Node arrowNode, ARWaypoint.WaypointType type, Vector3 position, float rotation) {
+        arrowNode.setRenderable(getRenderable(type));
         arrowNode.setLocalPosition(position);
-
-        // Corps courbé (plusieurs segments)
-        for (int i = 0; i < 5; i++) {
-            float angle = i * 18f; // 90° total en 5 segments
-            float radius = 0.5f;
-
-            float x = -radius * (float)Math.sin(Math.toRadians(angle));
-            float z = radius * (1 - (float)Math.cos(Math.toRadians(angle)));
-
-            ModelRenderable segment = ShapeFactory.makeCube(
-                    new Vector3(0.15f, 0.05f, 0.25f),
-                    new Vector3(x, 0, z),
-                    yellowMaterial
-            );
-
-            Node segmentNode = new Node();
-            segmentNode.setRenderable(segment);
-            segmentNode.setLocalRotation(
-                    Quaternion.axisAngle(new Vector3(0, 1, 0), -angle)
-            );
-            segmentNode.setParent(arrowNode);
+        if (type != ARWaypoint.WaypointType.DESTINATION) {
+            arrowNode.setLocalRotation(Quaternion.axisAngle(new Vector3(0, 1, 0), rotation));
         }
+    }
 
-        // Pointe de la flèche à gauche
-        ModelRenderable tip = ShapeFactory.makeCube(
-                new Vector3(0.35f, 0.05f, 0.25f),
-                new Vector3(-0.5f, 0, 0.5f),
-                yellowMaterial
-        );
-
-        Node tipNode = new Node();
-        tipNode.setRenderable(tip);
-        tipNode.setLocalRotation(Quaternion.axisAngle(new Vector3(0, 1, 0), -90));
-        tipNode.setParent(arrowNode);
+    /**
+     * Crée le node d'une flèche du type donné (marqueur pour DESTINATION)
+     */
+    public Node createArrow(ARWaypoint.WaypointType type, Vector3 position, float rotation) {
+        switch (type) {
+            case TURN_LEFT:
+                return createLeftArrow(position, rotation);
+            case TURN_RIGHT:
+                return createRightArrow(position, rotation);
+            case DESTINATION:
+                return createDestinationMarker(position);
+            default:
+                return createStraightArrow(position, rotation);
+        }
+    }
 
-        // Rotation globale
-        Quaternion rot = Quaternion.axisAngle(new Vector3(0, 1, 0), rotation);
-        arrowNode.setLocalRotation(rot);
+    /**
+     * Crée une flèche 3D droite (continuer tout droit)
+     */
+    public Node createStraightArrow(Vector3 position, float rotation) {
+        return createArrow(straightArrow, position, rotation);
+    }
 
-        return arrowNode;
+    /**
+     * Crée une flèche 3D courbe GAUCHE
+     */
+    public Node createLeftArrow(Vector3 position, float rotation) {
+        return createArrow(leftArrow, position, rotation);
     }
 
     /**
      * Crée une flèche 3D courbe DROITE
      */
     public Node createRightArrow(Vector3 position, float rotation) {
-        if (yellowMaterial == null) return null;
+        return createArrow(rightArrow, position, rotation);
+    }
+
+    private static Node createArrow(ModelRenderable renderable, Vector3 position, float rotation) {
+        if (renderable == null) return null;
 
         Node arrowNode = new Node();
         arrowNode.setLocalPosition(position);
+        arrowNode.setRenderable(renderable);
 
-        // Corps courbé (plusieurs segments)
-        for (int i = 0; i < 5; i++) {
-            float angle = i * 18f; // 90° total
-            float radius = 0.5f;
-
-            float x = radius * (float)Math.sin(Math.toRadians(angle));
-            float z = radius * (1 - (float)Math.cos(Math.toRadians(angle)));
-
-            ModelRenderable segment = ShapeFactory.makeCube(
-                    new Vector3(0.15f, 0.05f, 0.25f),
-                    new Vector3(x, 0, z),
-                    yellowMaterial
-            );
-
-            Node segmentNode = new Node();
-            segmentNode.setRenderable(segment);
-            segmentNode.setLocalRotation(
-                    Quaternion.axisAngle(new Vector3(0, 1, 0), angle)
-            );
-            segmentNode.setParent(arrowNode);
-        }
-
-        // Pointe de la flèche à droite
-        ModelRenderable tip = ShapeFactory.makeCube(
-                new Vector3(0.35f, 0.05f, 0.25f),
-                new Vector3(0.5f, 0, 0.5f),
-                yellowMaterial
-        );
-
-        Node tipNode = new Node();
-        tipNode.setRenderable(tip);
-        tipNode.setLocalRotation(Quaternion.axisAngle(new Vector3(0, 1, 0), 90));
-        tipNode.setParent(arrowNode);
-
-        // Rotation globale
-        Quaternion rot = Quaternion.axisAngle(new Vector3(0, 1, 0), rotation);
-        arrowNode.setLocalRotation(rot);
+        // Rotation pour orienter vers la direction
+        arrowNode.setLocalRotation(Quaternion.axisAngle(new Vector3(0, 1, 0), rotation));
 
         return arrowNode;
     }
@@ -181,25 +218,17 @@ public class Arrow3DRenderer {
      * Crée un marqueur de destination (cylindre vert)
      */
     public Node createDestinationMarker(Vector3 position) {
-        if (greenMaterial == null) return null;
+        if (destinationCylinder == null) return null;
 
         Node markerNode = new Node();
         markerNode.setLocalPosition(position);
-
-        ModelRenderable cylinder = ShapeFactory.makeCylinder(
-                0.3f,
-                1.5f,
-                new Vector3(0, 0.75f, 0),
-                greenMaterial
-        );
-
-        markerNode.setRenderable(cylinder);
+        markerNode.setRenderable(destinationCylinder);
         return markerNode;
     }
 
     public boolean isMaterialsReady() {
-        return blueMaterial != null && yellowMaterial != null && greenMaterial != null;
+        return straightArrow != null && leftArrow != null && rightArrow != null &&
+                straightQuad != null && leftQuad != null && rightQuad != null &&
+                destinationCylinder != null;
     }
 }
-
-
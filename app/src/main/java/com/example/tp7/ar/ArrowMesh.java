@@ -0,0 +1,112 @@
+package com.example.tp7.ar;
+
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.Material;
+import com.google.ar.sceneform.rendering.RenderableDefinition;
+import com.google.ar.sceneform.rendering.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Assemble plusieurs pavés en un seul maillage (un seul tampon de sommets et
+ * d'indices) : une flèche entière devient un seul node et un seul appel de dessin
+ */
+final class ArrowMesh {
+
+    // Faces d'un pavé : normale, puis deux axes tels que u × v = normale (ordre anti-horaire vu de l'extérieur)
+    private static final Vector3[][] FACES = {
+            {new Vector3(1, 0, 0), new Vector3(0, 1, 0), new Vector3(0, 0, 1)},
+            {new Vector3(-1, 0, 0), new Vector3(0, 0, 1), new Vector3(0, 1, 0)},
+            {new Vector3(0, 1, 0), new Vector3(0, 0, 1), new Vector3(1, 0, 0)},
+            {new Vector3(0, -1, 0), new Vector3(1, 0, 0), new Vector3(0, 0, 1)},
+            {new Vector3(0, 0, 1), new Vector3(1, 0, 0), new Vector3(0, 1, 0)},
+            {new Vector3(0, 0, -1), new Vector3(0, 1, 0), new Vector3(1, 0, 0)},
+    };
+
+    private static final float[][] CORNERS = {{-1, -1}, {1, -1}, {1, 1}, {-1, 1}};
+
+    private final List<Vertex> vertices = new ArrayList<>();
+    private final List<Integer> indices = new ArrayList<>();
+
+    // Boîte englobante des sommets (x, z) et hauteur du sommet le plus haut
+    private float minX = Float.MAX_VALUE;
+    private float maxX = -Float.MAX_VALUE;
+    private float minZ = Float.MAX_VALUE;
+    private float maxZ = -Float.MAX_VALUE;
+    private float maxY = -Float.MAX_VALUE;
+
+    /**
+     * Ajoute un pavé, équivalent à ShapeFactory.makeCube(size, center) posé sur un
+     * node enfant tourné de angle degrés autour de l'axe vertical
+     */
+    ArrowMesh addBox(Vector3 size, Vector3 center, float angle) {
+        Quaternion rotation = Quaternion.axisAngle(new Vector3(0, 1, 0), angle);
+        Vector3 half = size.scaled(0.5f);
+
+        for (Vector3[] face : FACES) {
+            Vector3 normal = face[0];
+            addFace(rotation, Vector3.add(center, multiply(normal, half)),
+                    multiply(face[1], half), multiply(face[2], half), normal);
+        }
+        return this;
+    }
+
+    /**
+     * Ajoute un rectangle horizontal tourné vers le haut (visible d'en haut uniquement)
+     * @param width Largeur (axe x)
+     * @param length Longueur (axe z)
+     */
+    ArrowMesh addQuad(float width, float length, Vector3 center, float angle) {
+        Quaternion rotation = Quaternion.axisAngle(new Vector3(0, 1, 0), angle);
+        addFace(rotation, center, new Vector3(0, 0, length / 2), new Vector3(width / 2, 0, 0),
+                new Vector3(0, 1, 0));
+        return this;
+    }
+
+    private void addFace(Quaternion rotation, Vector3 faceCenter, Vector3 u, Vector3 v, Vector3 normal) {
+        Vector3 rotatedNormal = rotation.rotateVector(normal);
+        int first = vertices.size();
+        for (float[] corner : CORNERS) {
+            Vector3 position = rotation.rotateVector(Vector3.add(faceCenter,
+                    Vector3.add(u.scaled(corner[0]), v.scaled(corner[1]))));
+            minX = Math.min(minX, position.x);
+            maxX = Math.max(maxX, position.x);
+            minZ = Math.min(minZ, position.z);
+            maxZ = Math.max(maxZ, position.z);
+            maxY = Math.max(maxY, position.y);
+            vertices.add(Vertex.builder()
+                    .setPosition(position)
+                    .setNormal(rotatedNormal)
+                    .setUvCoordinate(new Vertex.UvCoordinate((corner[0] + 1) / 2, (corner[1] + 1) / 2))
+                    .build());
+        }
+        Collections.addAll(indices, first, first + 1, first + 2, first, first + 2, first + 3);
+    }
+
+    /**
+     * Rectangle horizontal couvrant l'emprise de ce maillage (boîte englobante en x et z),
+     * posé sur son dessus : version simplifiée qui ne peut pas se décaler du maillage complet
+     */
+    ArrowMesh footprintQuad() {
+        return new ArrowMesh().addQuad(maxX - minX, maxZ - minZ,
+                new Vector3((minX + maxX) / 2, maxY, (minZ + maxZ) / 2), 0);
+    }
+
+    RenderableDefinition build(Material material) {
+        RenderableDefinition.Submesh submesh = RenderableDefinition.Submesh.builder()
+                .setTriangleIndices(indices)
+                .setMaterial(material)
+                .build();
+        return RenderableDefinition.builder()
+                .setVertices(vertices)
+                .setSubmeshes(Collections.singletonList(submesh))
+                .build();
+    }
+
+    private static Vector3 multiply(Vector3 axis, Vector3 half) {
+        return new Vector3(axis.x * half.x, axis.y * half.y, axis.z * half.z);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.tp7.offline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Contraction hierarchies d'un RoadGraph (mêmes numéros de nœuds et d'arcs),
+ * produites par l'outil chtool (section CHIE d'un RegionFile)
+ *
+ * Arcs montants de u : vers un nœud de rang supérieur (recherche avant)
+ * Arcs descendants de v : depuis un nœud de rang supérieur (recherche arrière)
+ * Chaque arc de la hiérarchie est un arc d'origine (first = -1, second = arc du
+ * RoadGraph) ou un raccourci (first, second = les deux arcs qu'il remplace)
+ *
+ * Format (little-endian) :
+ *   en-tête 32 octets : magic "RCH1", version, nœuds, arcs, arcs montants, arcs descendants
+ *   int[n + 1] premier arc montant, int[up] nœud cible, int[up] arc
+ *   int[n + 1] premier arc descendant, int[down] nœud source, int[down] arc
+ *   int[e] poids (dixièmes de seconde), int[e] first, int[e] second
+ */
+public class ChGraph {
+
+    static final int MAGIC = 0x31484352; // "RCH1" en little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private final int nodeCount;
+    private final int edgeCount;
+
+    private final IntBuffer firstUp;
+    private final IntBuffer upNode;
+    private final IntBuffer upEdge;
+    private final IntBuffer firstDown;
+    private final IntBuffer downNode;
+    private final IntBuffer downEdge;
+    private final IntBuffer edgeWeight;
+    private final IntBuffer edgeFirst;
+    private final IntBuffer edgeSecond;
+
+    public ChGraph(ByteBuffer data) throws IOException {
+        ByteBuffer buffer = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Fichier de hiérarchie invalide");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Version de hiérarchie non supportée: " + buffer.getInt(4));
+        }
+        nodeCount = buffer.getInt(8);
+        edgeCount = buffer.getInt(12);
+        int upCount = buffer.getInt(16);
+        int downCount = buffer.getInt(20);
+
+        long expected = HEADER_SIZE + 4L * (2L * (nodeCount + 1) + 2L * upCount + 2L * downCount + 3L * edgeCount);
+        if (nodeCount < 0 || edgeCount < 0 || upCount < 0 || downCount < 0 || buffer.capacity() < expected) {
+            throw new IOException("Fichier de hiérarchie tronqué");
+        }
+
+        int offset = HEADER_SIZE;
+        firstUp = RoadGraph.intSection(buffer, offset, nodeCount + 1);
+        offset += 4 * (nodeCount + 1);
+        upNode = RoadGraph.intSection(buffer, offset, upCount);
+        offset += 4 * upCount;
+        upEdge = RoadGraph.intSection(buffer, offset, upCount);
+        offset += 4 * upCount;
+        firstDown = RoadGraph.intSection(buffer, offset, nodeCount + 1);
+        offset += 4 * (nodeCount + 1);
+        downNode = RoadGraph.intSection(buffer, offset, downCount);
+        offset += 4 * downCount;
+        downEdge = RoadGraph.intSection(buffer, offset, downCount);
+        offset += 4 * downCount;
+        edgeWeight = RoadGraph.intSection(buffer, offset, edgeCount);
+        offset += 4 * edgeCount;
+        edgeFirst = RoadGraph.intSection(buffer, offset, edgeCount);
+        offset += 4 * edgeCount;
+        edgeSecond = RoadGraph.intSection(buffer, offset, edgeCount);
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    int getFirstUp(int node) {
+        return firstUp.get(node);
+    }
+
+    int getUpEnd(int node) {
+        return firstUp.get(node + 1);
+    }
+
+    int getUpNode(int index) {
+        return upNode.get(index);
+    }
+
+    int getUpEdge(int index) {
+        return upEdge.get(index);
+    }
+
+    int getFirstDown(int node) {
+        return firstDown.get(node);
+    }
+
+    int getDownEnd(int node) {
+        return firstDown.get(node + 1);
+    }
+
+    int getDownNode(int index) {
+        return downNode.get(index);
+    }
+
+    int getDownEdge(int index) {
+        return downEdge.get(index);
+    }
+
+    int getWeight(int edge) {
+        return edgeWeight.get(edge);
+    }
+
+    int getFirst(int edge) {
+        return edgeFirst.get(edge);
+    }
+
+    int getSecond(int edge) {
+        return edgeSecond.get(edge);
+    }
+}
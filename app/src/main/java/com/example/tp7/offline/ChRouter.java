@@ -0,0 +1,200 @@
+package com.example.tp7.offline;
+
+import java.util.Arrays;
+
+/**
+ * Requêtes sur contraction hierarchies : Dijkstra bidirectionnel ne suivant
+ * que les arcs montants (avant) et descendants (arrière), puis déroulage des
+ * raccourcis en arcs du RoadGraph. Quelques centaines de nœuds fixés par
+ * requête à l'échelle d'une ville, contre des dizaines de milliers pour A*
+ *
+ * Même réutilisation des tableaux que OfflineRouter (numéro de génération) ;
+ * une seule recherche à la fois
+ */
+public class ChRouter implements PathFinder {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final ChGraph hierarchy;
+
+    // État par nœud et par sens, valide si xxxGeneration[n] == generation
+    private final int[] forwardDistance;
+    private final int[] forwardEdge;
+    private final int[] forwardParent;
+    private final int[] forwardGeneration;
+    private final int[] backwardDistance;
+    private final int[] backwardEdge;
+    private final int[] backwardParent;
+    private final int[] backwardGeneration;
+    private int generation;
+
+    private final NodeHeap forwardHeap = new NodeHeap();
+    private final NodeHeap backwardHeap = new NodeHeap();
+
+    // Pile de déroulage des raccourcis
+    private int[] unpackStack = new int[64];
+
+    private int settledCount;
+
+    public ChRouter(ChGraph hierarchy) {
+        this.hierarchy = hierarchy;
+        int n = hierarchy.getNodeCount();
+        forwardDistance = new int[n];
+        forwardEdge = new int[n];
+        forwardParent = new int[n];
+        forwardGeneration = new int[n];
+        backwardDistance = new int[n];
+        backwardEdge = new int[n];
+        backwardParent = new int[n];
+        backwardGeneration = new int[n];
+    }
+
+    @Override
+    public synchronized int[] findPath(int from, int to, CancellationCheck cancelled) {
+        nextGeneration();
+        forwardHeap.clear();
+        backwardHeap.clear();
+        settledCount = 0;
+
+        reachForward(from, 0, -1, -1);
+        reachBackward(to, 0, -1, -1);
+        forwardHeap.push(from, 0);
+        backwardHeap.push(to, 0);
+
+        int best = INFINITY;
+        int meeting = -1;
+        while (true) {
+            double forwardMin = forwardHeap.isEmpty() ? INFINITY : forwardHeap.peekKey();
+            double backwardMin = backwardHeap.isEmpty() ? INFINITY : backwardHeap.peekKey();
+            // Tout chemin restant est au moins aussi long que le meilleur trouvé
+            if (Math.min(forwardMin, backwardMin) >= best) {
+                break;
+            }
+            settledCount++;
+            if (cancelled != null && (settledCount & 255) == 0 && cancelled.isCancelled()) {
+                return null;
+            }
+
+            if (forwardMin <= backwardMin) {
+                int node = forwardHeap.pop();
+                int distance = forwardDistance[node];
+                if (forwardMin > distance) {
+                    continue;
+                }
+                if (backwardGeneration[node] == generation && distance + backwardDistance[node] < best) {
+                    best = distance + backwardDistance[node];
+                    meeting = node;
+                }
+                for (int i = hierarchy.getFirstUp(node), end = hierarchy.getUpEnd(node); i < end; i++) {
+                    int next = hierarchy.getUpNode(i);
+                    int edge = hierarchy.getUpEdge(i);
+                    int candidate = distance + hierarchy.getWeight(edge);
+                    if (forwardGeneration[next] != generation || candidate < forwardDistance[next]) {
+                        reachForward(next, candidate, edge, node);
+                        forwardHeap.push(next, candidate);
+                    }
+                }
+            } else {
+                int node = backwardHeap.pop();
+                int distance = backwardDistance[node];
+                if (backwardMin > distance) {
+                    continue;
+                }
+                if (forwardGeneration[node] == generation && distance + forwardDistance[node] < best) {
+                    best = distance + forwardDistance[node];
+                    meeting = node;
+                }
+                for (int i = hierarchy.getFirstDown(node), end = hierarchy.getDownEnd(node); i < end; i++) {
+                    int previous = hierarchy.getDownNode(i);
+                    int edge = hierarchy.getDownEdge(i);
+                    int candidate = distance + hierarchy.getWeight(edge);
+                    if (backwardGeneration[previous] != generation || candidate < backwardDistance[previous]) {
+                        reachBackward(previous, candidate, edge, node);
+                        backwardHeap.push(previous, candidate);
+                    }
+                }
+            }
+        }
+
+        if (meeting < 0) {
+            return null;
+        }
+        return unpackPath(meeting);
+    }
+
+    /**
+     * Nombre de nœuds retirés des files par la dernière recherche (deux sens confondus)
+     */
+    public synchronized int getSettledCount() {
+        return settledCount;
+    }
+
+    private void reachForward(int node, int distance, int edge, int parent) {
+        forwardGeneration[node] = generation;
+        forwardDistance[node] = distance;
+        forwardEdge[node] = edge;
+        forwardParent[node] = parent;
+    }
+
+    private void reachBackward(int node, int distance, int edge, int parent) {
+        backwardGeneration[node] = generation;
+        backwardDistance[node] = distance;
+        backwardEdge[node] = edge;
+        backwardParent[node] = parent;
+    }
+
+    private void nextGeneration() {
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(forwardGeneration, 0);
+            Arrays.fill(backwardGeneration, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Arcs de la hiérarchie source -> rencontre -> destination, déroulés en arcs du RoadGraph
+     */
+    private int[] unpackPath(int meeting) {
+        int forwardCount = 0;
+        for (int node = meeting; forwardEdge[node] >= 0; node = forwardParent[node]) {
+            forwardCount++;
+        }
+        int backwardCount = 0;
+        for (int node = meeting; backwardEdge[node] >= 0; node = backwardParent[node]) {
+            backwardCount++;
+        }
+        int[] path = new int[forwardCount + backwardCount];
+        for (int node = meeting, i = forwardCount - 1; forwardEdge[node] >= 0; node = forwardParent[node], i--) {
+            path[i] = forwardEdge[node];
+        }
+        for (int node = meeting, i = forwardCount; backwardEdge[node] >= 0; node = backwardParent[node], i++) {
+            path[i] = backwardEdge[node];
+        }
+
+        int[] edges = new int[Math.max(16, path.length * 4)];
+        int count = 0;
+        for (int edge : path) {
+            int top = 0;
+            unpackStack[top++] = edge;
+            while (top > 0) {
+                int current = unpackStack[--top];
+                int first = hierarchy.getFirst(current);
+                if (first < 0) {
+                    if (count == edges.length) {
+                        edges = Arrays.copyOf(edges, count * 2);
+                    }
+                    edges[count++] = hierarchy.getSecond(current);
+                } else {
+                    if (top + 2 > unpackStack.length) {
+                        unpackStack = Arrays.copyOf(unpackStack, unpackStack.length * 2);
+                    }
+                    // Le premier demi-arc est dépilé en premier
+                    unpackStack[top++] = hierarchy.getSecond(current);
+                    unpackStack[top++] = first;
+                }
+            }
+        }
+        return Arrays.copyOf(edges, count);
+    }
+}
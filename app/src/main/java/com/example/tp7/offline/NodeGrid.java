@@ -0,0 +1,130 @@
+package com.example.tp7.offline;
+
+import java.nio.IntBuffer;
+
+/**
+ * Grille uniforme sur les nœuds du graphe, pour le rattachement d'une position
+ * au nœud le plus proche. Les nœuds sont triés par cellule (tri par comptage)
+ * dans un seul tableau : cellStart[c] .. cellStart[c + 1]
+ */
+class NodeGrid {
+
+    // Nombre moyen de nœuds visé par cellule
+    private static final int NODES_PER_CELL = 8;
+
+    private final IntBuffer latitudes;
+    private final IntBuffer longitudes;
+    private final int minLat;
+    private final int minLng;
+    private final int cellSize;
+    private final int rows;
+    private final int columns;
+    private final int[] cellStart;
+    private final int[] cellNodes;
+
+    NodeGrid(IntBuffer latitudes, IntBuffer longitudes, int nodeCount) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+
+        int minLat = Integer.MAX_VALUE, maxLat = Integer.MIN_VALUE;
+        int minLng = Integer.MAX_VALUE, maxLng = Integer.MIN_VALUE;
+        for (int i = 0; i < nodeCount; i++) {
+            int lat = latitudes.get(i);
+            int lng = longitudes.get(i);
+            if (lat < minLat) minLat = lat;
+            if (lat > maxLat) maxLat = lat;
+            if (lng < minLng) minLng = lng;
+            if (lng > maxLng) maxLng = lng;
+        }
+        if (nodeCount == 0) {
+            minLat = maxLat = minLng = maxLng = 0;
+        }
+        this.minLat = minLat;
+        this.minLng = minLng;
+
+        // Cellules carrées (en microdegrés) pour ~NODES_PER_CELL nœuds chacune
+        double area = Math.max(1.0, (double) (maxLat - minLat + 1) * (maxLng - minLng + 1));
+        int cells = Math.max(1, nodeCount / NODES_PER_CELL);
+        this.cellSize = (int) Math.max(1, Math.ceil(Math.sqrt(area / cells)));
+        this.rows = (maxLat - minLat) / cellSize + 1;
+        this.columns = (maxLng - minLng) / cellSize + 1;
+
+        cellStart = new int[rows * columns + 1];
+        int[] cellOf = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            int cell = cellIndex(latitudes.get(i), longitudes.get(i));
+            cellOf[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int c = 0; c < rows * columns; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellNodes = new int[nodeCount];
+        int[] fill = new int[rows * columns];
+        for (int i = 0; i < nodeCount; i++) {
+            int cell = cellOf[i];
+            cellNodes[cellStart[cell] + fill[cell]++] = i;
+        }
+    }
+
+    private int cellIndex(int lat, int lng) {
+        int row = clamp((lat - minLat) / cellSize, rows);
+        int column = clamp((lng - minLng) / cellSize, columns);
+        return row * columns + column;
+    }
+
+    private static int clamp(int value, int count) {
+        return value < 0 ? 0 : (value >= count ? count - 1 : value);
+    }
+
+    /**
+     * Parcourt des anneaux de cellules de plus en plus larges autour de la position,
+     * jusqu'à ce qu'aucune cellule restante ne puisse contenir un nœud plus proche
+     */
+    int findNearest(double lat, double lng) {
+        if (cellNodes.length == 0) {
+            return -1;
+        }
+        int qLat = (int) Math.round(lat * 1e6);
+        int qLng = (int) Math.round(lng * 1e6);
+        double cosLat = Math.cos(Math.toRadians(lat));
+        int row = clamp(Math.floorDiv(qLat - minLat, cellSize), rows);
+        int column = clamp(Math.floorDiv(qLng - minLng, cellSize), columns);
+
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        int maxRing = Math.max(rows, columns);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int r = row - ring; r <= row + ring; r++) {
+                if (r < 0 || r >= rows) {
+                    continue;
+                }
+                boolean edgeRow = r == row - ring || r == row + ring;
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int c = column - ring; c <= column + ring; c += step) {
+                    if (c < 0 || c >= columns) {
+                        continue;
+                    }
+                    int cell = r * columns + c;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int node = cellNodes[k];
+                        double dLat = latitudes.get(node) - qLat;
+                        double dLng = (longitudes.get(node) - qLng) * cosLat;
+                        double distance = dLat * dLat + dLng * dLng;
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            best = node;
+                        }
+                    }
+                }
+            }
+            // Toute cellule hors de l'anneau est à plus de ring * cellSize (en latitude)
+            // et ring * cellSize * cosLat (en longitude) de la position
+            double reach = ring * cellSize * Math.min(1.0, cosLat);
+            if (best >= 0 && reach * reach >= bestDistance) {
+                break;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.tp7.offline;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Géocodage hors ligne sur l'index d'adresses d'une région (section GEOC d'un
+ * RegionFile, produite par chtool) : trie compressé sur les noms normalisés
+ * Une recherche par préfixe ne lit que les nœuds du chemin dans le trie,
+ * puis la liste des meilleures entrées précalculée au nœud atteint
+ *
+ * Format (little-endian) :
+ *   en-tête 32 octets : magic "GEO1", version, entrées, taille des noms, taille du trie,
+ *                       offset de la racine, taille des listes du top, réservé
+ *   int[n] latitudes (microdegrés), int[n] longitudes, int[n + 1] début des noms,
+ *   noms UTF-8 (complétés à un multiple de 4), trie
+ *
+ * Nœud du trie : varint longueur + octets du fragment, varint nombre + ids exacts,
+ * varint nombre + ids du top, varint nombre d'enfants, puis pour chaque enfant :
+ * premier octet du fragment, varint offset du nœud
+ * Les deux listes d'ids sont rangées par importance et limitées à la taille du top
+ * (homonymes les moins importants absents)
+ * Méthodes sans état partagé : utilisables depuis plusieurs threads
+ */
+public class OfflineGeocoder {
+
+    static final int MAGIC = 0x314F4547; // "GEO1" en little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Résultat d'une recherche : nom affichable et position
+     */
+    public static class Suggestion {
+        public final String name;
+        public final LatLng location;
+
+        Suggestion(String name, LatLng location) {
+            this.name = name;
+            this.location = location;
+        }
+
+        // Texte affiché par les listes de suggestions
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final int entryCount;
+    private final int rootOffset;
+    private final IntBuffer latitudes;
+    private final IntBuffer longitudes;
+    private final IntBuffer nameOffsets;
+    private final ByteBuffer names;
+    private final ByteBuffer trie;
+
+    public OfflineGeocoder(ByteBuffer data) throws IOException {
+        ByteBuffer buffer = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Index d'adresses invalide");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Version d'index non supportée: " + buffer.getInt(4));
+        }
+        entryCount = buffer.getInt(8);
+        int nameLength = buffer.getInt(12);
+        int trieLength = buffer.getInt(16);
+        rootOffset = buffer.getInt(20);
+
+        long expected = HEADER_SIZE + 4L * (3L * entryCount + 1) + nameLength + (long) trieLength;
+        if (entryCount < 0 || nameLength < 0 || trieLength <= 0 || buffer.capacity() < expected ||
+                rootOffset < 0 || rootOffset >= trieLength) {
+            throw new IOException("Index d'adresses tronqué");
+        }
+
+        int offset = HEADER_SIZE;
+        latitudes = RoadGraph.intSection(buffer, offset, entryCount);
+        offset += 4 * entryCount;
+        longitudes = RoadGraph.intSection(buffer, offset, entryCount);
+        offset += 4 * entryCount;
+        nameOffsets = RoadGraph.intSection(buffer, offset, entryCount + 1);
+        offset += 4 * (entryCount + 1);
+        names = slice(buffer, offset, nameLength);
+        offset += nameLength;
+        trie = slice(buffer, offset, trieLength);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer section = buffer.duplicate();
+        section.position(offset).limit(offset + length);
+        return section.slice();
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Normalisation des recherches (minuscules, sans accents ni ponctuation) ;
+     * doit rester identique à celle de chtool (AddressIndexBuilder)
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Meilleures entrées dont le nom commence par prefix (les plus importantes d'abord)
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        long match = find(key.getBytes(StandardCharsets.UTF_8));
+        if (match < 0) {
+            return Collections.emptyList();
+        }
+
+        int position = skipLabel((int) match);
+        position = skipIds(position);
+        return readEntries(position, limit);
+    }
+
+    /**
+     * Position d'un nom complet (l'entrée la plus importante s'il y a des homonymes)
+     * @return null si le nom n'est pas dans l'index
+     */
+    public LatLng geocode(String query) {
+        String key = normalize(query);
+        if (key.isEmpty()) {
+            return null;
+        }
+        long match = find(key.getBytes(StandardCharsets.UTF_8));
+        // Le préfixe doit se terminer exactement à la fin du fragment du nœud
+        if (match < 0 || (match >>> 32) != 0) {
+            return null;
+        }
+        List<Suggestion> exact = readEntries(skipLabel((int) match), 1);
+        return exact.isEmpty() ? null : exact.get(0).location;
+    }
+
+    /**
+     * Descend dans le trie le long de key
+     * @return Offset du nœud atteint (32 bits de poids faible) et nombre d'octets de
+     *         son fragment non couverts par key (poids fort), -1 si aucune clé ne commence par key
+     */
+    private long find(byte[] key) {
+        int node = rootOffset;
+        int matched = 0;
+        while (true) {
+            int[] cursor = {node};
+            int labelLength = readVarint(cursor);
+            int labelStart = cursor[0];
+            int compared = Math.min(labelLength, key.length - matched);
+            for (int i = 0; i < compared; i++) {
+                if (trie.get(labelStart + i) != key[matched + i]) {
+                    return -1;
+                }
+            }
+            matched += compared;
+            if (matched == key.length) {
+                return ((long) (labelLength - compared) << 32) | node;
+            }
+
+            // Fragment entièrement couvert : enfant commençant par l'octet suivant
+            cursor[0] = skipIds(skipIds(labelStart + labelLength));
+            int childCount = readVarint(cursor);
+            int next = -1;
+            byte wanted = key[matched];
+            for (int i = 0; i < childCount; i++) {
+                byte first = trie.get(cursor[0]++);
+                int offset = readVarint(cursor);
+                if (first == wanted) {
+                    next = offset;
+                    break;
+                }
+            }
+            if (next < 0) {
+                return -1;
+            }
+            node = next;
+        }
+    }
+
+    private int skipLabel(int node) {
+        int[] cursor = {node};
+        int labelLength = readVarint(cursor);
+        return cursor[0] + labelLength;
+    }
+
+    private int skipIds(int position) {
+        int[] cursor = {position};
+        int count = readVarint(cursor);
+        for (int i = 0; i < count; i++) {
+            readVarint(cursor);
+        }
+        return cursor[0];
+    }
+
+    /**
+     * Lit une liste d'ids (varint nombre + ids) et renvoie les entrées correspondantes
+     */
+    private List<Suggestion> readEntries(int position, int limit) {
+        int[] cursor = {position};
+        int count = Math.min(readVarint(cursor), limit);
+        List<Suggestion> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = readVarint(cursor);
+            if (id < 0 || id >= entryCount) {
+                break;
+            }
+            result.add(new Suggestion(readName(id),
+                    new LatLng(latitudes.get(id) / 1e6, longitudes.get(id) / 1e6)));
+        }
+        return result;
+    }
+
+    private String readName(int id) {
+        int start = nameOffsets.get(id);
+        int end = nameOffsets.get(id + 1);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer slice = names.duplicate();
+        slice.position(start);
+        slice.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readVarint(int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        int position = cursor[0];
+        byte b;
+        do {
+            b = trie.get(position++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 35);
+        cursor[0] = position;
+        return value;
+    }
+}
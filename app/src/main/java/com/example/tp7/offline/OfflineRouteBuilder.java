@@ -0,0 +1,156 @@
+package com.example.tp7.offline;
+
+import com.example.tp7.DirectionsHelper;
+import com.example.tp7.route.RouteGeometry;
+import com.example.tp7.routing.RouteText;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Convertit un chemin du graphe en RouteInfo (géométrie, totaux, instructions)
+ * Une nouvelle étape commence à chaque changement de nom de voie, ou à un
+ * carrefour où le cap change nettement : chaque sommet d'une voie OSM est un nœud
+ * du graphe, les courbes et lacets d'une même rue ne sont donc pas des virages
+ */
+class OfflineRouteBuilder {
+
+    // Changement de cap (degrés) à partir duquel un virage est annoncé
+    private static final double TURN_ANGLE = 30.0;
+    // Longueur de part et d'autre du carrefour sur laquelle le cap est mesuré (mètres)
+    private static final double BEARING_SPAN = 20.0;
+
+    private OfflineRouteBuilder() {}
+
+    /**
+     * @param from Nœud de départ
+     * @param edges Arcs du chemin, dans l'ordre
+     */
+    static DirectionsHelper.RouteInfo build(RoadGraph graph, int from, int[] edges) {
+        DirectionsHelper.RouteInfo routeInfo = new DirectionsHelper.RouteInfo();
+
+        RouteGeometry.Builder geometry = new RouteGeometry.Builder(edges.length + 1);
+        geometry.add(graph.getLatitude(from), graph.getLongitude(from));
+
+        List<Integer> stepStarts = new ArrayList<>();
+        List<String> steps = new ArrayList<>();
+        String stepManeuver = "depart";
+        String stepName = edges.length > 0 ? graph.getEdgeName(edges[0]) : null;
+        double stepDistance = 0;
+        int stepStart = 0;
+
+        // Nœuds du chemin et distance cumulée jusqu'à chacun
+        int[] nodes = new int[edges.length + 1];
+        double[] cumulative = new double[edges.length + 1];
+        nodes[0] = from;
+        for (int i = 0; i < edges.length; i++) {
+            nodes[i + 1] = graph.getEdgeTarget(edges[i]);
+            cumulative[i + 1] = cumulative[i] + graph.getEdgeLength(edges[i]);
+        }
+
+        for (int i = 0; i < edges.length; i++) {
+            int edge = edges[i];
+            int target = nodes[i + 1];
+            String name = graph.getEdgeName(edge);
+
+            if (i > 0) {
+                String maneuver = isJunction(graph, nodes[i], nodes[i - 1])
+                        ? maneuver(graph, nodes, cumulative, i) : null;
+                boolean renamed = !sameName(name, stepName);
+                if (maneuver != null || renamed) {
+                    stepStarts.add(stepStart);
+                    steps.add(formatStep(steps.size(), stepManeuver, stepName, stepDistance));
+                    stepManeuver = maneuver != null ? maneuver : "new name";
+                    stepName = name;
+                    stepDistance = 0;
+                    stepStart = geometry.size() - 1;
+                }
+            }
+
+            double length = graph.getEdgeLength(edge);
+            routeInfo.distanceMeters += length;
+            routeInfo.durationSeconds += graph.getEdgeTime(edge);
+            stepDistance += length;
+
+            geometry.add(graph.getLatitude(target), graph.getLongitude(target));
+        }
+        stepStarts.add(stepStart);
+        steps.add(formatStep(steps.size(), stepManeuver, stepName, stepDistance));
+
+        // Arrivée
+        stepStarts.add(geometry.size() - 1);
+        steps.add(formatStep(steps.size(), "arrive", "", 0));
+
+        routeInfo.setGeometry(geometry.build());
+        routeInfo.distance = RouteText.formatDistance(routeInfo.distanceMeters);
+        routeInfo.duration = RouteText.formatDuration(routeInfo.durationSeconds);
+        routeInfo.steps.addAll(steps);
+        routeInfo.stepStartIndices = toArray(stepStarts);
+        return routeInfo;
+    }
+
+    private static String formatStep(int index, String maneuver, String name, double distance) {
+        return RouteText.formatInstruction(index, maneuver, name != null ? name : "", distance);
+    }
+
+    private static boolean sameName(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Carrefour : au moins deux voies possibles en sortie, sans compter le demi-tour
+     * vers le nœud d'où l'on vient (un simple sommet de voie n'en a qu'une)
+     */
+    static boolean isJunction(RoadGraph graph, int node, int previous) {
+        int exits = 0;
+        for (int edge = graph.getFirstEdge(node); edge < graph.getEdgeEnd(node); edge++) {
+            if (graph.getEdgeTarget(edge) != previous && ++exits >= 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Manœuvre au nœud index du chemin, null si la route continue tout droit
+     * Caps mesurés entre le carrefour et les points situés à BEARING_SPAN mètres
+     * avant et après, pour ne pas dépendre d'un petit tronçon isolé
+     */
+    private static String maneuver(RoadGraph graph, int[] nodes, double[] cumulative, int index) {
+        int before = index - 1;
+        while (before > 0 && cumulative[index] - cumulative[before] < BEARING_SPAN) {
+            before--;
+        }
+        int after = index + 1;
+        while (after < nodes.length - 1 && cumulative[after] - cumulative[index] < BEARING_SPAN) {
+            after++;
+        }
+        double previousBearing = bearing(graph, nodes[before], nodes[index]);
+        double bearing = bearing(graph, nodes[index], nodes[after]);
+
+        double delta = bearing - previousBearing;
+        while (delta > 180) delta -= 360;
+        while (delta < -180) delta += 360;
+        if (Math.abs(delta) < TURN_ANGLE) {
+            return null;
+        }
+        return delta > 0 ? "turn right" : "turn left";
+    }
+
+    private static double bearing(RoadGraph graph, int from, int to) {
+        double lat1 = Math.toRadians(graph.getLatitude(from));
+        double lat2 = Math.toRadians(graph.getLatitude(to));
+        double dLng = Math.toRadians(graph.getLongitude(to) - graph.getLongitude(from));
+        double y = Math.sin(dLng) * Math.cos(lat2);
+        double x = Math.cos(lat1) * Math.sin(lat2) - Math.sin(lat1) * Math.cos(lat2) * Math.cos(dLng);
+        return Math.toDegrees(Math.atan2(y, x));
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+}
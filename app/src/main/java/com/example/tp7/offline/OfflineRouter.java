@@ -0,0 +1,140 @@
+package com.example.tp7.offline;
+
+import java.util.Arrays;
+
+/**
+ * Plus court chemin (en temps de parcours) sur un RoadGraph, par A*
+ * Heuristique : distance à vol d'oiseau / vitesse maximale du graphe (admissible)
+ *
+ * Les tableaux de travail sont alloués une fois par graphe et réutilisés :
+ * un numéro de génération remplace leur remise à zéro entre deux recherches.
+ * Une seule recherche à la fois (méthodes synchronisées)
+ */
+public class OfflineRouter implements PathFinder {
+
+    // Marge sur l'heuristique pour absorber les arrondis des durées stockées
+    private static final double HEURISTIC_FACTOR = 0.995;
+
+    private final RoadGraph graph;
+    private final double inverseMaxSpeed;
+
+    // État par nœud, valide si visitGeneration[n] == generation
+    private final double[] cost;
+    private final int[] parentEdge;
+    private final int[] parentNode;
+    private final int[] visitGeneration;
+    private final int[] closedGeneration;
+    private int generation;
+
+    private final NodeHeap heap = new NodeHeap();
+
+    // Nombre de nœuds fixés lors de la dernière recherche
+    private int settledCount;
+
+    public OfflineRouter(RoadGraph graph) {
+        this.graph = graph;
+        int n = graph.getNodeCount();
+        float maxSpeed = graph.getMaxSpeed();
+        this.inverseMaxSpeed = maxSpeed > 0 ? HEURISTIC_FACTOR / maxSpeed : 0;
+        cost = new double[n];
+        parentEdge = new int[n];
+        parentNode = new int[n];
+        visitGeneration = new int[n];
+        closedGeneration = new int[n];
+    }
+
+    public RoadGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Chemin le plus rapide entre deux nœuds
+     * @return Arcs du chemin dans l'ordre (tableau vide si from == to), null si aucun chemin
+     */
+    public synchronized int[] findPath(int from, int to) {
+        return findPath(from, to, null);
+    }
+
+    @Override
+    public synchronized int[] findPath(int from, int to, CancellationCheck cancelled) {
+        nextGeneration();
+        heap.clear();
+        settledCount = 0;
+
+        double targetLat = graph.getLatitude(to);
+        double targetLng = graph.getLongitude(to);
+
+        visit(from, 0, -1, -1);
+        heap.push(from, heuristic(from, targetLat, targetLng));
+
+        while (!heap.isEmpty()) {
+            int node = heap.pop();
+            if (closedGeneration[node] == generation) {
+                continue;
+            }
+            closedGeneration[node] = generation;
+            settledCount++;
+
+            if (node == to) {
+                return buildPath(to);
+            }
+            if (cancelled != null && (settledCount & 1023) == 0 && cancelled.isCancelled()) {
+                return null;
+            }
+
+            double nodeCost = cost[node];
+            for (int e = graph.getFirstEdge(node), end = graph.getEdgeEnd(node); e < end; e++) {
+                int target = graph.getEdgeTarget(e);
+                if (closedGeneration[target] == generation) {
+                    continue;
+                }
+                double newCost = nodeCost + graph.getEdgeTime(e);
+                if (visitGeneration[target] != generation || newCost < cost[target]) {
+                    visit(target, newCost, e, node);
+                    heap.push(target, newCost + heuristic(target, targetLat, targetLng));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Nombre de nœuds fixés par la dernière recherche (mesure de son coût)
+     */
+    public synchronized int getSettledCount() {
+        return settledCount;
+    }
+
+    private double heuristic(int node, double targetLat, double targetLng) {
+        return RoadGraph.distance(graph.getLatitude(node), graph.getLongitude(node),
+                targetLat, targetLng) * inverseMaxSpeed;
+    }
+
+    private void visit(int node, double nodeCost, int edge, int parent) {
+        visitGeneration[node] = generation;
+        cost[node] = nodeCost;
+        parentEdge[node] = edge;
+        parentNode[node] = parent;
+    }
+
+    private void nextGeneration() {
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(visitGeneration, 0);
+            Arrays.fill(closedGeneration, 0);
+            generation = 1;
+        }
+    }
+
+    private int[] buildPath(int to) {
+        int length = 0;
+        for (int node = to; parentEdge[node] >= 0; node = parentNode[node]) {
+            length++;
+        }
+        int[] edges = new int[length];
+        for (int node = to, i = length - 1; parentEdge[node] >= 0; node = parentNode[node], i--) {
+            edges[i] = parentEdge[node];
+        }
+        return edges;
+    }
+}
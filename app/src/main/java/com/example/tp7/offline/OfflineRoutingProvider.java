@@ -0,0 +1,98 @@
+package com.example.tp7.offline;
+
+import com.example.tp7.DirectionsHelper;
+import com.example.tp7.routing.RequestContext;
+import com.example.tp7.routing.RoutingException;
+import com.example.tp7.routing.RoutingProvider;
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Itinéraires calculés sur l'appareil, à partir du graphe routier d'une région
+ * téléchargée (aucun accès réseau)
+ * Requêtes par contraction hierarchies si la région en fournit, sinon par A*
+ */
+public class OfflineRoutingProvider implements RoutingProvider {
+
+    // Distance maximale (mètres) entre un point demandé et le réseau routier
+    public static final double DEFAULT_MAX_SNAP_DISTANCE = 500;
+
+    private final RoadGraph graph;
+    private final PathFinder router;
+    private volatile double maxSnapDistance = DEFAULT_MAX_SNAP_DISTANCE;
+
+    public OfflineRoutingProvider(RoadGraph graph) {
+        this.graph = graph;
+        this.router = new OfflineRouter(graph);
+    }
+
+    /**
+     * @param hierarchy Contraction hierarchies du même graphe (produites par chtool)
+     */
+    public OfflineRoutingProvider(RoadGraph graph, ChGraph hierarchy) throws IOException {
+        if (hierarchy.getNodeCount() != graph.getNodeCount()) {
+            throw new IOException("Hiérarchie incompatible avec le graphe");
+        }
+        this.graph = graph;
+        this.router = new ChRouter(hierarchy);
+    }
+
+    /**
+     * Routage sur une région : graphe obligatoire, hiérarchie utilisée si présente (sinon A*)
+     */
+    public static OfflineRoutingProvider open(RegionFile region) throws IOException {
+        RoadGraph graph = new RoadGraph(region.requireSection(RegionFile.SECTION_GRAPH));
+        ByteBuffer hierarchy = region.getSection(RegionFile.SECTION_HIERARCHY);
+        if (hierarchy != null) {
+            return new OfflineRoutingProvider(graph, new ChGraph(hierarchy));
+        }
+        return new OfflineRoutingProvider(graph);
+    }
+
+    public RoadGraph getGraph() {
+        return graph;
+    }
+
+    public void setMaxSnapDistance(double meters) {
+        maxSnapDistance = meters;
+    }
+
+    /**
+     * Région identifiée par la taille de son graphe
+     */
+    @Override
+    public String getCacheKey() {
+        return "offline:" + graph.getNodeCount() + ":" + graph.getEdgeCount();
+    }
+
+    @Override
+    public DirectionsHelper.RouteInfo getRoute(LatLng origin, LatLng destination, RequestContext request)
+            throws RoutingException {
+        int from = snap(origin);
+        int to = snap(destination);
+
+        int[] edges = router.findPath(from, to, request::isCancelled);
+        if (request.isCancelled()) {
+            return null;
+        }
+        if (edges == null) {
+            throw new RoutingException("Aucun itinéraire hors ligne entre ces points");
+        }
+        return OfflineRouteBuilder.build(graph, from, edges);
+    }
+
+    /**
+     * Nœud du graphe le plus proche d'une position
+     * @throws RoutingException Position hors de la région couverte
+     */
+    private int snap(LatLng position) throws RoutingException {
+        int node = graph.findNearestNode(position.latitude, position.longitude);
+        if (node < 0 || RoadGraph.distance(position.latitude, position.longitude,
+                graph.getLatitude(node), graph.getLongitude(node)) > maxSnapDistance) {
+            throw new RoutingException("Position hors zone hors ligne");
+        }
+        return node;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.tp7.offline;
+
+/**
+ * Recherche du chemin le plus rapide entre deux nœuds d'un RoadGraph
+ */
+public interface PathFinder {
+
+    /**
+     * @param cancelled Consulté périodiquement ; la recherche s'arrête (null) s'il renvoie true
+     * @return Arcs du RoadGraph dans l'ordre (tableau vide si from == to), null si aucun chemin
+     */
+    int[] findPath(int from, int to, CancellationCheck cancelled);
+
+    interface CancellationCheck {
+        boolean isCancelled();
+    }
+}
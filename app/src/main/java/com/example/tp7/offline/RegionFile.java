@@ -0,0 +1,129 @@
+package com.example.tp7.offline;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fichier de région hors ligne, en lecture seule et mappé en mémoire
+ * Ouverture en temps constant : seuls l'en-tête et la table des sections sont
+ * lus, les données restent dans le cache de pages (pas de copie sur le tas Java)
+ *
+ * Format (little-endian) :
+ *   en-tête 32 octets : magic "TP7R", version, nombre de sections, taille de page,
+ *                       taille du fichier (long), réservé
+ *   table : par section, tag (4 caractères ASCII), réservé, offset (long), taille (long)
+ *   sections alignées sur la taille de page (4096 octets)
+ */
+public class RegionFile {
+
+    static final int MAGIC = 0x52375054; // "TP7R" en little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int ENTRY_SIZE = 24;
+    public static final int PAGE_SIZE = 4096;
+
+    // Sections connues
+    public static final int SECTION_GRAPH = tag("GRPH");
+    public static final int SECTION_HIERARCHY = tag("CHIE");
+    public static final int SECTION_ADDRESSES = tag("GEOC");
+
+    private final ByteBuffer data;
+    // Tag -> [offset, taille]
+    private final Map<Integer, long[]> sections = new HashMap<>();
+
+    public static RegionFile open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Région trop grande: " + channel.size() + " octets");
+            }
+            // Le mapping reste valide après la fermeture du canal
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new RegionFile(buffer);
+        }
+    }
+
+    public RegionFile(ByteBuffer buffer) throws IOException {
+        data = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Fichier de région invalide");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Version de région non supportée: " + data.getInt(4));
+        }
+        int count = data.getInt(8);
+        int pageSize = data.getInt(12);
+        long fileLength = data.getLong(16);
+        if (fileLength != data.capacity()) {
+            throw new IOException("Fichier de région tronqué");
+        }
+        if (count < 0 || HEADER_SIZE + (long) count * ENTRY_SIZE > data.capacity()) {
+            throw new IOException("Table des sections invalide");
+        }
+
+        for (int i = 0; i < count; i++) {
+            int entry = HEADER_SIZE + i * ENTRY_SIZE;
+            int tag = data.getInt(entry);
+            long offset = data.getLong(entry + 8);
+            long length = data.getLong(entry + 16);
+            if (offset < 0 || length < 0 || offset + length > fileLength ||
+                    (pageSize > 0 && offset % pageSize != 0)) {
+                throw new IOException("Section invalide: " + tagName(tag));
+            }
+            sections.put(tag, new long[]{offset, length});
+        }
+    }
+
+    public boolean hasSection(int tag) {
+        return sections.containsKey(tag);
+    }
+
+    /**
+     * Vue (little-endian, position 0) sur une section, null si absente
+     */
+    public ByteBuffer getSection(int tag) {
+        long[] section = sections.get(tag);
+        if (section == null) {
+            return null;
+        }
+        ByteBuffer slice = data.duplicate();
+        slice.position((int) section[0]).limit((int) (section[0] + section[1]));
+        return slice.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Section obligatoire
+     * @throws IOException Section absente
+     */
+    public ByteBuffer requireSection(int tag) throws IOException {
+        ByteBuffer section = getSection(tag);
+        if (section == null) {
+            throw new IOException("Section manquante: " + tagName(tag));
+        }
+        return section;
+    }
+
+    /**
+     * Tag d'une section à partir de ses 4 caractères ASCII
+     */
+    public static int tag(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length != 4) {
+            throw new IllegalArgumentException("Tag de 4 caractères attendu: " + name);
+        }
+        return (bytes[0] & 0xFF) | (bytes[1] & 0xFF) << 8 | (bytes[2] & 0xFF) << 16 | (bytes[3] & 0xFF) << 24;
+    }
+
+    static String tagName(int tag) {
+        byte[] bytes = {(byte) tag, (byte) (tag >> 8), (byte) (tag >> 16), (byte) (tag >> 24)};
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.tp7.offline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Graphe routier d'une région (section GRPH d'un RegionFile), lu directement
+ * dans le fichier mappé en mémoire
+ * Adjacence CSR : les arcs sortants du nœud n sont [firstEdge[n], firstEdge[n + 1])
+ * Aucune copie sur le tas Java : les données restent dans le cache de pages
+ *
+ * Format (little-endian) :
+ *   en-tête 32 octets : magic "RGR1", version, nœuds, arcs, noms, vitesse max (float m/s)
+ *   int[n]     latitudes (microdegrés)
+ *   int[n]     longitudes (microdegrés)
+ *   int[n + 1] premier arc de chaque nœud
+ *   int[m]     nœud cible de chaque arc
+ *   int[m]     longueur (décimètres)
+ *   int[m]     durée de parcours (dixièmes de seconde)
+ *   int[m]     index du nom de la voie (-1 si sans nom)
+ *   int[k + 1] début de chaque nom dans la table UTF-8, puis les octets des noms
+ */
+public class RoadGraph {
+
+    static final int MAGIC = 0x31524752; // "RGR1" en little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private static final double METERS_PER_DEGREE = 111320.0;
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final int nameCount;
+    private final float maxSpeed;
+
+    private final IntBuffer latitudes;
+    private final IntBuffer longitudes;
+    private final IntBuffer firstEdge;
+    private final IntBuffer edgeTarget;
+    private final IntBuffer edgeLength;
+    private final IntBuffer edgeTime;
+    private final IntBuffer edgeName;
+    private final IntBuffer nameOffsets;
+    private final ByteBuffer nameBytes;
+
+    // Noms déjà décodés (les mêmes voies reviennent d'un itinéraire à l'autre)
+    private final String[] decodedNames;
+
+    private NodeGrid nodeGrid;
+
+    public RoadGraph(ByteBuffer data) throws IOException {
+        ByteBuffer buffer = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Fichier de graphe invalide");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Version de graphe non supportée: " + buffer.getInt(4));
+        }
+        nodeCount = buffer.getInt(8);
+        edgeCount = buffer.getInt(12);
+        nameCount = buffer.getInt(16);
+        maxSpeed = buffer.getFloat(20);
+
+        long expected = HEADER_SIZE + 4L * (3L * nodeCount + 1 + 4L * edgeCount + nameCount + 1);
+        if (nodeCount < 0 || edgeCount < 0 || nameCount < 0 || buffer.capacity() < expected) {
+            throw new IOException("Fichier de graphe tronqué");
+        }
+
+        int offset = HEADER_SIZE;
+        latitudes = intSection(buffer, offset, nodeCount);
+        offset += 4 * nodeCount;
+        longitudes = intSection(buffer, offset, nodeCount);
+        offset += 4 * nodeCount;
+        firstEdge = intSection(buffer, offset, nodeCount + 1);
+        offset += 4 * (nodeCount + 1);
+        edgeTarget = intSection(buffer, offset, edgeCount);
+        offset += 4 * edgeCount;
+        edgeLength = intSection(buffer, offset, edgeCount);
+        offset += 4 * edgeCount;
+        edgeTime = intSection(buffer, offset, edgeCount);
+        offset += 4 * edgeCount;
+        edgeName = intSection(buffer, offset, edgeCount);
+        offset += 4 * edgeCount;
+        nameOffsets = intSection(buffer, offset, nameCount + 1);
+        offset += 4 * (nameCount + 1);
+
+        int nameLength = nameOffsets.get(nameCount);
+        if (offset + (long) nameLength > buffer.capacity()) {
+            throw new IOException("Table des noms tronquée");
+        }
+        ByteBuffer names = buffer.duplicate();
+        names.position(offset).limit(offset + nameLength);
+        nameBytes = names.slice();
+
+        decodedNames = new String[nameCount];
+    }
+
+    static IntBuffer intSection(ByteBuffer buffer, int offset, int count) {
+        ByteBuffer section = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        section.position(offset).limit(offset + 4 * count);
+        return section.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Vitesse maximale du graphe (m/s), borne de l'heuristique A*
+     */
+    public float getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public double getLatitude(int node) {
+        return latitudes.get(node) / 1e6;
+    }
+
+    public double getLongitude(int node) {
+        return longitudes.get(node) / 1e6;
+    }
+
+    public int getFirstEdge(int node) {
+        return firstEdge.get(node);
+    }
+
+    public int getEdgeEnd(int node) {
+        return firstEdge.get(node + 1);
+    }
+
+    public int getEdgeTarget(int edge) {
+        return edgeTarget.get(edge);
+    }
+
+    /**
+     * Longueur d'un arc (mètres)
+     */
+    public double getEdgeLength(int edge) {
+        return edgeLength.get(edge) / 10.0;
+    }
+
+    /**
+     * Durée de parcours d'un arc (secondes)
+     */
+    public double getEdgeTime(int edge) {
+        return edgeTime.get(edge) / 10.0;
+    }
+
+    /**
+     * Nom de la voie d'un arc (null si sans nom)
+     */
+    public String getEdgeName(int edge) {
+        int index = edgeName.get(edge);
+        if (index < 0 || index >= nameCount) {
+            return null;
+        }
+        String name = decodedNames[index];
+        if (name == null) {
+            int start = nameOffsets.get(index);
+            int end = nameOffsets.get(index + 1);
+            byte[] bytes = new byte[end - start];
+            ByteBuffer slice = nameBytes.duplicate();
+            slice.position(start);
+            slice.get(bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+            decodedNames[index] = name;
+        }
+        return name;
+    }
+
+    /**
+     * Arc de from vers to (-1 si absent), le plus rapide s'il y en a plusieurs
+     */
+    public int findEdge(int from, int to) {
+        int best = -1;
+        for (int e = getFirstEdge(from), end = getEdgeEnd(from); e < end; e++) {
+            if (edgeTarget.get(e) == to && (best < 0 || edgeTime.get(e) < edgeTime.get(best))) {
+                best = e;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Nœud le plus proche d'une position (-1 si le graphe est vide)
+     * L'index spatial est construit au premier appel
+     */
+    public int findNearestNode(double lat, double lng) {
+        NodeGrid grid;
+        synchronized (this) {
+            if (nodeGrid == null) {
+                nodeGrid = new NodeGrid(latitudes, longitudes, nodeCount);
+            }
+            grid = nodeGrid;
+        }
+        return grid.findNearest(lat, lng);
+    }
+
+    /**
+     * Distance équirectangulaire (mètres), suffisante à l'échelle d'une région
+     */
+    public static double distance(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = lat2 - lat1;
+        double dLng = (lng2 - lng1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        return Math.sqrt(dLat * dLat + dLng * dLng) * METERS_PER_DEGREE;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.tp7.route;
+
+/**
+ * Décodage des polylignes encodées (format Google, utilisé par OSRM)
+ * Les points sont écrits directement dans un RouteGeometry.Builder,
+ * sans objet intermédiaire
+ */
+public final class PolylineDecoder {
+
+    // geometries=polyline6
+    public static final int PRECISION_6 = 6;
+    // geometries=polyline
+    public static final int PRECISION_5 = 5;
+
+    private PolylineDecoder() {}
+
+    /**
+     * Décode une polyligne et ajoute ses points au builder
+     * @param precision Nombre de décimales (5 ou 6)
+     * @return Nombre de points ajoutés
+     */
+    public static int decode(CharSequence encoded, int precision, RouteGeometry.Builder builder) {
+        double factor = Math.pow(10, precision);
+        int length = encoded.length();
+        int index = 0;
+        int count = 0;
+        long lat = 0;
+        long lng = 0;
+
+        while (index < length) {
+            // Latitude
+            long result = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = encoded.charAt(index++) - 63;
+                result |= (long) (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20 && index < length);
+            lat += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            if (index >= length) {
+                throw new IllegalArgumentException("Polyligne tronquée à l'index " + index);
+            }
+
+            // Longitude
+            result = 0;
+            shift = 0;
+            do {
+                b = encoded.charAt(index++) - 63;
+                result |= (long) (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20 && index < length);
+            if (b >= 0x20) {
+                // Fin de chaîne avec le bit de continuation encore levé
+                throw new IllegalArgumentException("Polyligne tronquée à l'index " + index);
+            }
+            lng += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            builder.add(lat / factor, lng / factor);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Décode une polyligne complète en géométrie
+     */
+    public static RouteGeometry decode(CharSequence encoded, int precision) {
+        // Une coordonnée occupe au moins 2 caractères
+        RouteGeometry.Builder builder = new RouteGeometry.Builder(encoded.length() / 4);
+        decode(encoded, precision, builder);
+        return builder.build();
+    }
+
+    /**
+     * Nombre de points d'une polyligne, sans la décoder
+     * (chaque valeur se termine par un caractère sans bit de continuation)
+     */
+    public static int countVertices(CharSequence encoded) {
+        int values = 0;
+        for (int i = 0; i < encoded.length(); i++) {
+            if (encoded.charAt(i) - 63 < 0x20) {
+                values++;
+            }
+        }
+        return values / 2;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.tp7.route;
+
+import android.location.Location;
+
+/**
+ * Table des distances cumulées le long d'une route (somme préfixe)
+ * Construite une seule fois par itinéraire : distance restante, distance
+ * jusqu'à un point et progression deviennent des lectures en O(1)
+ */
+public class RouteDistanceTable {
+
+    // cumulative[i] = distance (mètres) entre le premier point et le point i
+    private final double[] cumulative;
+
+    public RouteDistanceTable(RouteGeometry geometry) {
+        int count = geometry.size();
+        double[] latitudes = geometry.getLatitudes();
+        double[] longitudes = geometry.getLongitudes();
+        cumulative = new double[count];
+
+        float[] results = new float[1];
+        for (int i = 1; i < count; i++) {
+            Location.distanceBetween(
+                    latitudes[i - 1], longitudes[i - 1],
+                    latitudes[i], longitudes[i],
+                    results
+            );
+            cumulative[i] = cumulative[i - 1] + results[0];
+        }
+    }
+
+    /**
+     * Crée une table à partir de distances cumulées déjà calculées
+     */
+    public RouteDistanceTable(double[] cumulative) {
+        this.cumulative = cumulative;
+    }
+
+    /**
+     * Distance totale de la route (mètres)
+     */
+    public double getTotalDistance() {
+        return cumulative.length > 0 ? cumulative[cumulative.length - 1] : 0;
+    }
+
+    /**
+     * Distance depuis le départ jusqu'au point donné
+     */
+    public double distanceAt(int index) {
+        if (cumulative.length == 0) {
+            return 0;
+        }
+        return cumulative[clamp(index)];
+    }
+
+    /**
+     * Distance depuis le départ jusqu'à une position sur un segment
+     */
+    public double distanceAt(int segment, float fraction) {
+        if (cumulative.length == 0) {
+            return 0;
+        }
+        int start = clamp(segment);
+        int end = clamp(segment + 1);
+        return cumulative[start] + (cumulative[end] - cumulative[start]) * fraction;
+    }
+
+    /**
+     * Distance le long de la route entre deux points
+     */
+    public double distanceBetween(int fromIndex, int toIndex) {
+        return distanceAt(toIndex) - distanceAt(fromIndex);
+    }
+
+    /**
+     * Distance restante jusqu'à l'arrivée depuis une position sur un segment
+     */
+    public double remainingFrom(int segment, float fraction) {
+        return getTotalDistance() - distanceAt(segment, fraction);
+    }
+
+    /**
+     * Longueur d'un segment [segment, segment + 1]
+     */
+    public double segmentLength(int segment) {
+        return distanceBetween(segment, segment + 1);
+    }
+
+    /**
+     * Progression (0-100) pour une distance parcourue donnée
+     */
+    public int progressPercent(double travelledDistance) {
+        double total = getTotalDistance();
+        if (total <= 0) {
+            return 0;
+        }
+        int progress = (int) (travelledDistance / total * 100);
+        return Math.max(0, Math.min(100, progress));
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+
+    /**
+     * Accès direct au tableau (lecture seule) pour les recherches dichotomiques
+     */
+    public double[] getCumulativeDistances() {
+        return cumulative;
+    }
+
+    private int clamp(int index) {
+        return Math.max(0, Math.min(index, cumulative.length - 1));
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.tp7.route;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Géométrie compacte d'une route : coordonnées stockées dans deux tableaux
+ * de doubles parallèles (aucun objet par point)
+ * Les boucles de calcul lisent directement les tableaux ; la vue List<LatLng>
+ * n'est destinée qu'aux API qui l'exigent (Google Maps)
+ */
+public final class RouteGeometry {
+
+    public static final RouteGeometry EMPTY = new RouteGeometry(new double[0], new double[0], 0);
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int size;
+
+    private List<LatLng> latLngView;
+
+    /**
+     * Les tableaux sont utilisés tels quels (pas de copie)
+     */
+    public RouteGeometry(double[] latitudes, double[] longitudes, int size) {
+        if (latitudes.length < size || longitudes.length < size) {
+            throw new IllegalArgumentException("Tableaux trop courts pour " + size + " points");
+        }
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.size = size;
+    }
+
+    public static RouteGeometry fromLatLngs(List<LatLng> points) {
+        int count = points.size();
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        for (int i = 0; i < count; i++) {
+            LatLng point = points.get(i);
+            lats[i] = point.latitude;
+            lngs[i] = point.longitude;
+        }
+        return new RouteGeometry(lats, lngs, count);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    /**
+     * Tableau des latitudes (lecture seule, seuls les size() premiers éléments sont valides)
+     */
+    public double[] getLatitudes() {
+        return latitudes;
+    }
+
+    /**
+     * Tableau des longitudes (lecture seule, seuls les size() premiers éléments sont valides)
+     */
+    public double[] getLongitudes() {
+        return longitudes;
+    }
+
+    /**
+     * Crée un LatLng pour un point (alloue : à éviter dans les boucles)
+     */
+    public LatLng getLatLng(int index) {
+        return new LatLng(latitudes[index], longitudes[index]);
+    }
+
+    public LatLng getFirst() {
+        return getLatLng(0);
+    }
+
+    public LatLng getLast() {
+        return getLatLng(size - 1);
+    }
+
+    /**
+     * Vue List<LatLng> paresseuse : les LatLng sont créés à la lecture
+     */
+    public List<LatLng> asLatLngList() {
+        if (latLngView == null) {
+            latLngView = new LatLngView();
+        }
+        return latLngView;
+    }
+
+    private class LatLngView extends AbstractList<LatLng> implements RandomAccess {
+        @Override
+        public LatLng get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            }
+            return new LatLng(latitudes[index], longitudes[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Construction incrémentale (parsing)
+     */
+    public static class Builder {
+        private double[] latitudes;
+        private double[] longitudes;
+        private int size;
+
+        public Builder() {
+            this(256);
+        }
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+        }
+
+        public Builder add(double latitude, double longitude) {
+            if (size == latitudes.length) {
+                int capacity = size * 2;
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+            }
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public RouteGeometry build() {
+            if (size != latitudes.length) {
+                latitudes = Arrays.copyOf(latitudes, size);
+                longitudes = Arrays.copyOf(longitudes, size);
+            }
+            return new RouteGeometry(latitudes, longitudes, size);
+        }
+    }
+}
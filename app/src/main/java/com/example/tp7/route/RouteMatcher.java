@@ -0,0 +1,150 @@
+package com.example.tp7.route;
+
+/**
+ * Map-matching de la position sur la route avec un curseur
+ * La recherche se limite à une fenêtre autour du dernier segment trouvé
+ * (coût constant par position, pas de saut vers une autre portion de la route
+ * qui repasse au même endroit). La recherche globale n'est utilisée
+ * qu'au-delà du seuil de sortie de route.
+ */
+public class RouteMatcher {
+
+    private static final float DEFAULT_WINDOW_BEHIND = 30f;  // mètres
+    private static final float DEFAULT_WINDOW_AHEAD = 300f;  // mètres
+    private static final int MAX_WINDOW_SEGMENTS = 128;      // borne du coût par position
+    private static final float DEFAULT_OFF_ROUTE_THRESHOLD = 40f; // mètres
+    private static final int OFF_ROUTE_CONFIRMATIONS = 3;    // positions consécutives
+
+    public enum Status {
+        ON_ROUTE,           // Position rattachée à la route
+        OFF_ROUTE_DETECTED, // Sortie de route confirmée à cette position
+        OFF_ROUTE           // Toujours hors de la route
+    }
+
+    private final RouteSpatialIndex spatialIndex;
+    private final RouteDistanceTable distanceTable;
+
+    private float windowBehind = DEFAULT_WINDOW_BEHIND;
+    private float windowAhead = DEFAULT_WINDOW_AHEAD;
+    private float offRouteThreshold = DEFAULT_OFF_ROUTE_THRESHOLD;
+
+    // Segment du dernier rattachement (-1 tant qu'aucune position n'a été traitée)
+    private int cursor = -1;
+    private int farFixCount = 0;
+    private boolean offRoute = false;
+
+    private final SegmentMatch candidate = new SegmentMatch();
+    private final SegmentMatch globalMatch = new SegmentMatch();
+
+    public RouteMatcher(RouteSpatialIndex spatialIndex, RouteDistanceTable distanceTable) {
+        this.spatialIndex = spatialIndex;
+        this.distanceTable = distanceTable;
+    }
+
+    /**
+     * Rattache une position à la route
+     * @param result Rempli avec le meilleur rattachement (même hors route)
+     */
+    public Status match(double latitude, double longitude, SegmentMatch result) {
+        if (spatialIndex.getSegmentCount() == 0) {
+            result.reset();
+            return Status.ON_ROUTE;
+        }
+
+        if (cursor < 0) {
+            // Première position : recherche globale pour initialiser le curseur
+            spatialIndex.findNearestSegment(latitude, longitude, result);
+            cursor = result.segmentIndex;
+        } else {
+            matchInWindow(latitude, longitude, result);
+        }
+
+        if (result.distance <= offRouteThreshold) {
+            cursor = result.segmentIndex;
+            farFixCount = 0;
+            offRoute = false;
+            return Status.ON_ROUTE;
+        }
+
+        // Hors de la fenêtre : vérifier si on a rejoint une autre portion de la route
+        spatialIndex.findNearestSegment(latitude, longitude, globalMatch);
+        if (globalMatch.isValid() && globalMatch.distance <= offRouteThreshold) {
+            result.set(globalMatch);
+            cursor = globalMatch.segmentIndex;
+            farFixCount = 0;
+            offRoute = false;
+            return Status.ON_ROUTE;
+        }
+
+        farFixCount++;
+        if (offRoute) {
+            return Status.OFF_ROUTE;
+        }
+        if (farFixCount >= OFF_ROUTE_CONFIRMATIONS) {
+            offRoute = true;
+            return Status.OFF_ROUTE_DETECTED;
+        }
+        // Écart toléré (imprécision GPS) : on garde le curseur
+        return Status.ON_ROUTE;
+    }
+
+    /**
+     * Cherche le segment le plus proche dans la fenêtre [curseur - arrière, curseur + avant]
+     */
+    private void matchInWindow(double latitude, double longitude, SegmentMatch result) {
+        result.reset();
+        int segmentCount = spatialIndex.getSegmentCount();
+        double cursorDistance = distanceTable.distanceAt(cursor);
+
+        // En arrière du curseur
+        int scanned = 0;
+        for (int seg = cursor; seg >= 0 && scanned < MAX_WINDOW_SEGMENTS; seg--, scanned++) {
+            if (seg < cursor && cursorDistance - distanceTable.distanceAt(seg + 1) > windowBehind) {
+                break;
+            }
+            keepBest(seg, latitude, longitude, result);
+        }
+
+        // En avant du curseur
+        scanned = 0;
+        for (int seg = cursor + 1; seg < segmentCount && scanned < MAX_WINDOW_SEGMENTS; seg++, scanned++) {
+            if (distanceTable.distanceAt(seg) - cursorDistance > windowAhead) {
+                break;
+            }
+            keepBest(seg, latitude, longitude, result);
+        }
+    }
+
+    private void keepBest(int segment, double latitude, double longitude, SegmentMatch result) {
+        spatialIndex.projectOnSegment(segment, latitude, longitude, candidate);
+        if (candidate.distance < result.distance) {
+            result.set(candidate);
+        }
+    }
+
+    /**
+     * Réinitialise le curseur (nouvel itinéraire ou recalcul)
+     */
+    public void reset() {
+        cursor = -1;
+        farFixCount = 0;
+        offRoute = false;
+    }
+
+    public boolean isOffRoute() {
+        return offRoute;
+    }
+
+    public int getCursor() {
+        return cursor;
+    }
+
+    public void setWindow(float behindMeters, float aheadMeters) {
+        this.windowBehind = behindMeters;
+        this.windowAhead = aheadMeters;
+    }
+
+    public void setOffRouteThreshold(float meters) {
+        this.offRouteThreshold = meters;
+    }
+}
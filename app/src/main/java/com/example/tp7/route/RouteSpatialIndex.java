@@ -0,0 +1,380 @@
+package com.example.tp7.route;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index spatial (grille uniforme) sur les segments d'une route
+ * Construit une seule fois par itinéraire, il répond aux requêtes
+ * "segment le plus proche" en ne visitant que les cellules autour de la position
+ */
+public class RouteSpatialIndex {
+
+    private static final double METERS_PER_DEGREE_LAT = 111320.0;
+    private static final float DEFAULT_CELL_SIZE = 50f; // mètres
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+
+    // Au-delà de ce rayon (en cellules), on repasse sur une recherche linéaire
+    private static final int MAX_SEARCH_RING = 64;
+
+    private final int pointCount;
+    private final int segmentCount;
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    // Projection équirectangulaire locale (mètres) utilisée pour la grille
+    private final double originLat;
+    private final double originLng;
+    private final double metersPerDegreeLng;
+    private final double[] xs;
+    private final double[] ys;
+
+    private final float cellSize;
+    private int minCellX, maxCellX, minCellY, maxCellY;
+
+    // Table de hachage à adressage ouvert : clé de cellule → plage dans cellSegments
+    private long[] tableKeys;
+    private int[] tableStart;
+    private int[] tableCount;
+    private int tableMask;
+    private int[] cellSegments;
+
+    // État de la requête en cours (l'index est utilisé depuis un seul thread)
+    private int bestSegment;
+    private double bestDistSq;
+
+    public RouteSpatialIndex(RouteGeometry geometry) {
+        this(geometry, DEFAULT_CELL_SIZE);
+    }
+
+    public RouteSpatialIndex(RouteGeometry geometry, float cellSize) {
+        this.cellSize = cellSize;
+        this.pointCount = geometry.size();
+        this.segmentCount = Math.max(pointCount - 1, pointCount > 0 ? 1 : 0);
+        this.latitudes = geometry.getLatitudes();
+        this.longitudes = geometry.getLongitudes();
+
+        double sumLat = 0;
+        for (int i = 0; i < pointCount; i++) {
+            sumLat += latitudes[i];
+        }
+
+        this.originLat = pointCount > 0 ? latitudes[0] : 0;
+        this.originLng = pointCount > 0 ? longitudes[0] : 0;
+        double meanLat = pointCount > 0 ? sumLat / pointCount : 0;
+        this.metersPerDegreeLng = METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(meanLat));
+
+        this.xs = new double[pointCount];
+        this.ys = new double[pointCount];
+        for (int i = 0; i < pointCount; i++) {
+            xs[i] = (longitudes[i] - originLng) * metersPerDegreeLng;
+            ys[i] = (latitudes[i] - originLat) * METERS_PER_DEGREE_LAT;
+        }
+
+        buildGrid();
+    }
+
+    /**
+     * Construit la grille : chaque segment est inscrit dans toutes les cellules qu'il traverse
+     */
+    private void buildGrid() {
+        Map<Long, IntList> cells = new HashMap<>();
+        minCellX = Integer.MAX_VALUE;
+        minCellY = Integer.MAX_VALUE;
+        maxCellX = Integer.MIN_VALUE;
+        maxCellY = Integer.MIN_VALUE;
+
+        for (int seg = 0; seg < segmentCount; seg++) {
+            int next = Math.min(seg + 1, pointCount - 1);
+            rasterizeSegment(seg, xs[seg], ys[seg], xs[next], ys[next], cells);
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(cells.size(), 1) * 2 - 1) << 1;
+        tableKeys = new long[capacity];
+        tableStart = new int[capacity];
+        tableCount = new int[capacity];
+        tableMask = capacity - 1;
+        Arrays.fill(tableKeys, EMPTY_KEY);
+
+        int total = 0;
+        for (IntList list : cells.values()) {
+            total += list.size;
+        }
+        cellSegments = new int[total];
+
+        int offset = 0;
+        for (Map.Entry<Long, IntList> entry : cells.entrySet()) {
+            long key = entry.getKey();
+            IntList list = entry.getValue();
+            int slot = hash(key) & tableMask;
+            while (tableKeys[slot] != EMPTY_KEY) {
+                slot = (slot + 1) & tableMask;
+            }
+            tableKeys[slot] = key;
+            tableStart[slot] = offset;
+            tableCount[slot] = list.size;
+            System.arraycopy(list.values, 0, cellSegments, offset, list.size);
+            offset += list.size;
+        }
+    }
+
+    /**
+     * Parcours de grille (Amanatides & Woo) des cellules traversées par un segment
+     */
+    private void rasterizeSegment(int seg, double x0, double y0, double x1, double y1,
+                                  Map<Long, IntList> cells) {
+        int cx = cellOf(x0);
+        int cy = cellOf(y0);
+        int endX = cellOf(x1);
+        int endY = cellOf(y1);
+
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+
+        double tMaxX = dx != 0
+                ? ((stepX > 0 ? (cx + 1) * (double) cellSize : cx * (double) cellSize) - x0) / dx
+                : Double.POSITIVE_INFINITY;
+        double tMaxY = dy != 0
+                ? ((stepY > 0 ? (cy + 1) * (double) cellSize : cy * (double) cellSize) - y0) / dy
+                : Double.POSITIVE_INFINITY;
+        double tDeltaX = dx != 0 ? cellSize / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        double tDeltaY = dy != 0 ? cellSize / Math.abs(dy) : Double.POSITIVE_INFINITY;
+
+        addToCell(cx, cy, seg, cells);
+        int steps = Math.abs(endX - cx) + Math.abs(endY - cy);
+        for (int i = 0; i < steps; i++) {
+            if (tMaxX < tMaxY) {
+                cx += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                cy += stepY;
+                tMaxY += tDeltaY;
+            }
+            addToCell(cx, cy, seg, cells);
+        }
+    }
+
+    private void addToCell(int cx, int cy, int seg, Map<Long, IntList> cells) {
+        long key = cellKey(cx, cy);
+        IntList list = cells.get(key);
+        if (list == null) {
+            list = new IntList();
+            cells.put(key, list);
+        }
+        list.add(seg);
+
+        minCellX = Math.min(minCellX, cx);
+        maxCellX = Math.max(maxCellX, cx);
+        minCellY = Math.min(minCellY, cy);
+        maxCellY = Math.max(maxCellY, cy);
+    }
+
+    /**
+     * Trouve le segment le plus proche d'une position et le point projeté sur ce segment
+     * @param result Objet rempli avec le résultat (réutilisable, aucune allocation)
+     * @return true si un segment a été trouvé
+     */
+    public boolean findNearestSegment(double latitude, double longitude, SegmentMatch result) {
+        result.reset();
+        if (segmentCount == 0) {
+            return false;
+        }
+
+        double x = (longitude - originLng) * metersPerDegreeLng;
+        double y = (latitude - originLat) * METERS_PER_DEGREE_LAT;
+        int cx = cellOf(x);
+        int cy = cellOf(y);
+
+        // Rayon maximal utile : au-delà, toutes les cellules de la grille ont été visitées
+        int maxRing = Math.max(
+                Math.max(Math.abs(cx - minCellX), Math.abs(cx - maxCellX)),
+                Math.max(Math.abs(cy - minCellY), Math.abs(cy - maxCellY)));
+
+        if (maxRing > MAX_SEARCH_RING && distanceToGrid(cx, cy) > MAX_SEARCH_RING) {
+            // Très loin de la route : la recherche linéaire est plus rapide que l'anneau
+            return findNearestSegmentLinear(latitude, longitude, result);
+        }
+
+        bestSegment = -1;
+        bestDistSq = Double.MAX_VALUE;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int i = -ring; i <= ring; i++) {
+                // Bords haut et bas de l'anneau
+                scanCell(cx + i, cy - ring, x, y);
+                if (ring > 0) {
+                    scanCell(cx + i, cy + ring, x, y);
+                }
+            }
+            for (int j = -ring + 1; j <= ring - 1; j++) {
+                // Bords gauche et droit (sans les coins)
+                scanCell(cx - ring, cy + j, x, y);
+                scanCell(cx + ring, cy + j, x, y);
+            }
+
+            // Tout segment non visité est à au moins ring * cellSize de la position
+            double bound = ring * (double) cellSize;
+            if (bestSegment >= 0 && bestDistSq <= bound * bound) {
+                break;
+            }
+            if (ring >= MAX_SEARCH_RING) {
+                return findNearestSegmentLinear(latitude, longitude, result);
+            }
+        }
+
+        if (bestSegment < 0) {
+            return findNearestSegmentLinear(latitude, longitude, result);
+        }
+
+        projectOnSegment(bestSegment, latitude, longitude, result);
+        return true;
+    }
+
+    private void scanCell(int cx, int cy, double x, double y) {
+        int slot = findSlot(cellKey(cx, cy));
+        if (slot < 0) {
+            return;
+        }
+
+        int start = tableStart[slot];
+        int end = start + tableCount[slot];
+        for (int k = start; k < end; k++) {
+            int seg = cellSegments[k];
+            double distSq = planarDistanceSq(seg, x, y);
+            if (distSq < bestDistSq) {
+                bestDistSq = distSq;
+                bestSegment = seg;
+            }
+        }
+    }
+
+    /**
+     * Recherche exhaustive (utilisée loin de la route)
+     */
+    public boolean findNearestSegmentLinear(double latitude, double longitude, SegmentMatch result) {
+        result.reset();
+        if (segmentCount == 0) {
+            return false;
+        }
+
+        double x = (longitude - originLng) * metersPerDegreeLng;
+        double y = (latitude - originLat) * METERS_PER_DEGREE_LAT;
+
+        int bestSegment = 0;
+        double bestDistSq = Double.MAX_VALUE;
+        for (int seg = 0; seg < segmentCount; seg++) {
+            double distSq = planarDistanceSq(seg, x, y);
+            if (distSq < bestDistSq) {
+                bestDistSq = distSq;
+                bestSegment = seg;
+            }
+        }
+
+        projectOnSegment(bestSegment, latitude, longitude, result);
+        return true;
+    }
+
+    /**
+     * Projette une position sur un segment donné et remplit le résultat
+     */
+    public void projectOnSegment(int segment, double latitude, double longitude, SegmentMatch result) {
+        int next = Math.min(segment + 1, pointCount - 1);
+
+        double x = (longitude - originLng) * metersPerDegreeLng;
+        double y = (latitude - originLat) * METERS_PER_DEGREE_LAT;
+        double t = projectionFraction(segment, next, x, y);
+
+        double lat = latitudes[segment] + (latitudes[next] - latitudes[segment]) * t;
+        double lng = longitudes[segment] + (longitudes[next] - longitudes[segment]) * t;
+
+        // Distance finale calculée avec l'échelle locale de la position (plus précise)
+        double dLat = (lat - latitude) * METERS_PER_DEGREE_LAT;
+        double dLng = (lng - longitude) * METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(latitude));
+
+        result.segmentIndex = segment;
+        result.fraction = (float) t;
+        result.latitude = lat;
+        result.longitude = lng;
+        result.distance = (float) Math.sqrt(dLat * dLat + dLng * dLng);
+    }
+
+    private double planarDistanceSq(int segment, double x, double y) {
+        int next = Math.min(segment + 1, pointCount - 1);
+        double t = projectionFraction(segment, next, x, y);
+        double px = xs[segment] + (xs[next] - xs[segment]) * t;
+        double py = ys[segment] + (ys[next] - ys[segment]) * t;
+        double dx = x - px;
+        double dy = y - py;
+        return dx * dx + dy * dy;
+    }
+
+    private double projectionFraction(int segment, int next, double x, double y) {
+        double sx = xs[next] - xs[segment];
+        double sy = ys[next] - ys[segment];
+        double lengthSq = sx * sx + sy * sy;
+        if (lengthSq == 0) {
+            return 0;
+        }
+        double t = ((x - xs[segment]) * sx + (y - ys[segment]) * sy) / lengthSq;
+        return t < 0 ? 0 : (t > 1 ? 1 : t);
+    }
+
+    private int distanceToGrid(int cx, int cy) {
+        int dx = cx < minCellX ? minCellX - cx : (cx > maxCellX ? cx - maxCellX : 0);
+        int dy = cy < minCellY ? minCellY - cy : (cy > maxCellY ? cy - maxCellY : 0);
+        return Math.max(dx, dy);
+    }
+
+    private int findSlot(long key) {
+        int slot = hash(key) & tableMask;
+        while (true) {
+            long current = tableKeys[slot];
+            if (current == key) {
+                return slot;
+            }
+            if (current == EMPTY_KEY) {
+                return -1;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+    }
+
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long cellKey(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * Liste d'entiers extensible (construction uniquement)
+     */
+    private static class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
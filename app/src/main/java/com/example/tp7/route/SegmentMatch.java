@@ -0,0 +1,49 @@
+package com.example.tp7.route;
+
+/**
+ * Résultat (réutilisable) d'une recherche du segment le plus proche sur la route
+ */
+public class SegmentMatch {
+
+    // Index du segment [segmentIndex, segmentIndex + 1] (-1 si aucun)
+    public int segmentIndex = -1;
+
+    // Position du point projeté sur le segment (0 = début, 1 = fin)
+    public float fraction;
+
+    // Point projeté sur le segment
+    public double latitude;
+    public double longitude;
+
+    // Distance entre la position et le point projeté (mètres)
+    public float distance = Float.MAX_VALUE;
+
+    public boolean isValid() {
+        return segmentIndex >= 0;
+    }
+
+    public void reset() {
+        segmentIndex = -1;
+        fraction = 0f;
+        latitude = 0;
+        longitude = 0;
+        distance = Float.MAX_VALUE;
+    }
+
+    public void set(SegmentMatch other) {
+        segmentIndex = other.segmentIndex;
+        fraction = other.fraction;
+        latitude = other.latitude;
+        longitude = other.longitude;
+        distance = other.distance;
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentMatch{" +
+                "segment=" + segmentIndex +
+                ", fraction=" + fraction +
+                ", distance=" + distance +
+                "m}";
+    }
+}
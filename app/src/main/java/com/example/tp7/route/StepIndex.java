@@ -0,0 +1,75 @@
+package com.example.tp7.route;
+
+/**
+ * Position des débuts d'étapes le long de la route
+ * L'étape courante et la distance jusqu'à la prochaine manœuvre sont obtenues
+ * par recherche dichotomique sur la distance parcourue (O(log s))
+ */
+public class StepIndex {
+
+    // Distance (mètres depuis le départ) du début de chaque étape, croissante
+    private final double[] stepStartDistances;
+
+    /**
+     * @param stepStartIndices Index du premier point de chaque étape (null si inconnu)
+     * @param stepCount Nombre d'étapes
+     * @param distanceTable Distances cumulées de la route
+     */
+    public StepIndex(int[] stepStartIndices, int stepCount, RouteDistanceTable distanceTable) {
+        stepStartDistances = new double[stepCount];
+
+        if (stepStartIndices != null && stepStartIndices.length == stepCount) {
+            double previous = 0;
+            for (int i = 0; i < stepCount; i++) {
+                // Garantir une suite croissante même si les index sont imparfaits
+                previous = Math.max(previous, distanceTable.distanceAt(stepStartIndices[i]));
+                stepStartDistances[i] = previous;
+            }
+        } else {
+            // Pas de géométrie par étape : répartition uniforme sur la longueur de la route
+            double total = distanceTable.getTotalDistance();
+            for (int i = 0; i < stepCount; i++) {
+                stepStartDistances[i] = total * i / Math.max(stepCount, 1);
+            }
+        }
+    }
+
+    /**
+     * Étape dans laquelle se trouve une position (dernière étape commencée)
+     */
+    public int stepAt(double travelledDistance) {
+        int low = 0;
+        int high = stepStartDistances.length - 1;
+        int result = 0;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (stepStartDistances[mid] <= travelledDistance) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Distance jusqu'au début de l'étape suivant stepIndex (prochaine manœuvre)
+     * @param routeLength Utilisée quand il n'y a plus d'étape après stepIndex
+     */
+    public double distanceToNextManeuver(int stepIndex, double travelledDistance, double routeLength) {
+        double target = stepIndex + 1 < stepStartDistances.length
+                ? stepStartDistances[stepIndex + 1]
+                : routeLength;
+        return Math.max(0, target - travelledDistance);
+    }
+
+    public double getStepStartDistance(int stepIndex) {
+        return stepStartDistances[stepIndex];
+    }
+
+    public int getStepCount() {
+        return stepStartDistances.length;
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.tp7.routing;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.LruCache;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.text.Normalizer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache des résultats de géocodage à deux niveaux
+ * - mémoire : LRU des dernières adresses recherchées
+ * - disque : SharedPreferences avec durée de validité, bornée en nombre d'entrées
+ * Clé : requête normalisée (casse, espaces, Unicode)
+ */
+public class GeocodeCache {
+
+    private static final String PREFS_NAME = "geocode_cache";
+    private static final int DEFAULT_MEMORY_ENTRIES = 64;
+    private static final int DEFAULT_DISK_ENTRIES = 500;
+    private static final long DEFAULT_TTL_MILLIS = TimeUnit.DAYS.toMillis(30);
+    // Dépassement toléré avant un nettoyage du disque (nettoyage par lots)
+    private static final int TRIM_BATCH = 50;
+
+    private final LruCache<String, Entry> memory;
+    private final SharedPreferences disk;
+    private final int maxDiskEntries;
+    private final long ttlMillis;
+
+    // Nombre approximatif d'entrées sur le disque (-1 tant qu'il n'a pas été compté)
+    private int diskCount = -1;
+
+    public GeocodeCache(Context context) {
+        this(context, DEFAULT_MEMORY_ENTRIES, DEFAULT_DISK_ENTRIES, DEFAULT_TTL_MILLIS);
+    }
+
+    public GeocodeCache(Context context, int maxMemoryEntries, int maxDiskEntries, long ttlMillis) {
+        this.memory = new LruCache<>(maxMemoryEntries);
+        // Le fichier est chargé en arrière-plan par le système, jamais lu ici
+        this.disk = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.maxDiskEntries = maxDiskEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Position en cache pour une adresse (null si absente ou expirée)
+     * Peut lire le disque : à appeler hors du thread principal
+     */
+    public LatLng get(String query) {
+        String key = normalize(query);
+        if (key.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+
+        Entry entry = memory.get(key);
+        if (entry == null) {
+            entry = Entry.decode(disk.getString(key, null));
+            if (entry == null) {
+                return null;
+            }
+            memory.put(key, entry);
+        }
+
+        if (now - entry.timestamp > ttlMillis) {
+            memory.remove(key);
+            removeFromDisk(key);
+            return null;
+        }
+        return new LatLng(entry.latitude, entry.longitude);
+    }
+
+    /**
+     * Mémorise le résultat d'une recherche
+     */
+    public void put(String query, LatLng location) {
+        String key = normalize(query);
+        if (key.isEmpty() || location == null) {
+            return;
+        }
+
+        Entry entry = new Entry(location.latitude, location.longitude, System.currentTimeMillis());
+        memory.put(key, entry);
+
+        synchronized (this) {
+            if (diskCount < 0) {
+                diskCount = disk.getAll().size();
+            }
+            if (!disk.contains(key)) {
+                diskCount++;
+            }
+            SharedPreferences.Editor editor = disk.edit().putString(key, entry.encode());
+            if (diskCount > maxDiskEntries + TRIM_BATCH) {
+                diskCount = trimDisk(editor, key);
+            }
+            editor.apply();
+        }
+    }
+
+    public void clear() {
+        memory.evictAll();
+        synchronized (this) {
+            disk.edit().clear().apply();
+            diskCount = 0;
+        }
+    }
+
+    private synchronized void removeFromDisk(String key) {
+        if (disk.contains(key)) {
+            disk.edit().remove(key).apply();
+            if (diskCount > 0) {
+                diskCount--;
+            }
+        }
+    }
+
+    /**
+     * Supprime les entrées expirées puis les plus anciennes au-delà de la limite
+     * Lit tout le fichier : appelé seulement quand le disque dépasse la limite d'un lot
+     * @return Nombre d'entrées restantes
+     */
+    private int trimDisk(SharedPreferences.Editor editor, String addedKey) {
+        Map<String, ?> all = disk.getAll();
+        int count = all.size() + (all.containsKey(addedKey) ? 0 : 1);
+        if (count <= maxDiskEntries) {
+            return count;
+        }
+
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, Long>> byAge = new ArrayList<>(all.size());
+        for (Map.Entry<String, ?> stored : all.entrySet()) {
+            if (stored.getKey().equals(addedKey)) {
+                continue;
+            }
+            Object value = stored.getValue();
+            Entry entry = value instanceof String ? Entry.decode((String) value) : null;
+            if (entry == null || now - entry.timestamp > ttlMillis) {
+                editor.remove(stored.getKey());
+                count--;
+            } else {
+                byAge.add(new AbstractMap.SimpleEntry<>(stored.getKey(), entry.timestamp));
+            }
+        }
+
+        Collections.sort(byAge, (a, b) -> Long.compare(a.getValue(), b.getValue()));
+        for (int i = 0; i < byAge.size() && count > maxDiskEntries; i++) {
+            editor.remove(byAge.get(i).getKey());
+            count--;
+        }
+        return count;
+    }
+
+    /**
+     * Normalise une requête : "  Rue de la  Paix, PARIS " -> "rue de la paix, paris"
+     */
+    public static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFC);
+        return normalized.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static class Entry {
+        final double latitude;
+        final double longitude;
+        final long timestamp;
+
+        Entry(double latitude, double longitude, long timestamp) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.timestamp = timestamp;
+        }
+
+        // Format disque : "lat;lng;timestamp"
+        String encode() {
+            return latitude + ";" + longitude + ";" + timestamp;
+        }
+
+        static Entry decode(String value) {
+            if (value == null) {
+                return null;
+            }
+            String[] parts = value.split(";");
+            if (parts.length != 3) {
+                return null;
+            }
+            try {
+                return new Entry(Double.parseDouble(parts[0]),
+                        Double.parseDouble(parts[1]),
+                        Long.parseLong(parts[2]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
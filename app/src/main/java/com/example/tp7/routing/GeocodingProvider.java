@@ -0,0 +1,17 @@
+package com.example.tp7.routing;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.IOException;
+
+/**
+ * Source de géocodage (adresse -> position)
+ * Appelé sur un thread d'arrière-plan
+ */
+public interface GeocodingProvider {
+
+    /**
+     * @return Position de l'adresse, null si introuvable ou requête annulée
+     */
+    LatLng geocode(String query, RequestContext request) throws RoutingException, IOException;
+}
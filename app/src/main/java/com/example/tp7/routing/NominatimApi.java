@@ -0,0 +1,17 @@
+package com.example.tp7.routing;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * API de recherche Nominatim (géocodage)
+ */
+public interface NominatimApi {
+
+    @GET("search")
+    Call<ResponseBody> search(@Query("q") String query,
+                              @Query("format") String format,
+                              @Query("limit") int limit);
+}
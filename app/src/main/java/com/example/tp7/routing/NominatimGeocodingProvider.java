@@ -0,0 +1,60 @@
+package com.example.tp7.routing;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Géocodage par un serveur Nominatim (API /search)
+ */
+public class NominatimGeocodingProvider implements GeocodingProvider {
+
+    // API GRATUITE : Nominatim pour géocodage
+    public static final String DEFAULT_BASE_URL = "https://nominatim.openstreetmap.org/";
+
+    private final NominatimApi api;
+
+    public NominatimGeocodingProvider() {
+        this(DEFAULT_BASE_URL);
+    }
+
+    /**
+     * @param baseUrl URL du serveur, terminée par "/"
+     */
+    public NominatimGeocodingProvider(String baseUrl) {
+        this.api = RoutingHttpClient.createApi(baseUrl, NominatimApi.class);
+    }
+
+    @Override
+    public LatLng geocode(String query, RequestContext request) throws RoutingException, IOException {
+        Call<ResponseBody> call = api.search(query, "json", 1);
+        Response<ResponseBody> response = request.execute(call);
+
+        try (ResponseBody body = response.body()) {
+            if (!response.isSuccessful() || body == null) {
+                throw new RoutingException("Erreur HTTP: " + response.code());
+            }
+
+            JSONArray results = new JSONArray(body.string());
+            if (results.length() > 0) {
+                JSONObject location = results.getJSONObject(0);
+                double lat = location.getDouble("lat");
+                double lon = location.getDouble("lon");
+                return new LatLng(lat, lon);
+            }
+            return null;
+        } catch (JSONException e) {
+            throw new RoutingException("Réponse Nominatim invalide", e);
+        } finally {
+            request.release(call);
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.example.tp7.routing;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import com.example.tp7.DirectionsHelper;
+import com.example.tp7.route.PolylineDecoder;
+import com.example.tp7.route.RouteGeometry;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parsing des réponses OSRM /route
+ * Deux chemins : un parser en flux (JsonReader) qui décode la géométrie
+ * directement dans des tableaux primitifs en une seule passe, et l'ancien
+ * parser par arbre (org.json) conservé en secours
+ */
+class OSRMResponseParser {
+
+    private OSRMResponseParser() {}
+
+    // ==================== Parser en flux ====================
+
+    /**
+     * Parse une réponse OSRM au fil de la lecture, sans construire d'arbre JSON
+     * @param polylinePrecision Précision des géométries encodées (ignorée en GeoJSON)
+     */
+    static DirectionsHelper.RouteInfo parseStream(Reader input, int polylinePrecision)
+            throws IOException, RoutingException {
+        JsonReader reader = new JsonReader(input);
+        String code = null;
+        RouteData route = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("code")) {
+                code = reader.nextString();
+            } else if (name.equals("routes")) {
+                reader.beginArray();
+                if (reader.hasNext()) {
+                    route = readRoute(reader, polylinePrecision);
+                }
+                while (reader.hasNext()) {
+                    reader.skipValue();
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!"Ok".equals(code)) {
+            throw new RoutingException("OSRM Status: " + code);
+        }
+
+        return route != null ? route.toRouteInfo() : new DirectionsHelper.RouteInfo();
+    }
+
+    private static RouteData readRoute(JsonReader reader, int polylinePrecision) throws IOException {
+        RouteData route = new RouteData();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "distance":
+                    route.distanceMeters = reader.nextDouble();
+                    break;
+                case "duration":
+                    route.durationSeconds = reader.nextDouble();
+                    break;
+                case "geometry":
+                    route.geometry = readGeometry(reader, polylinePrecision);
+                    break;
+                case "legs":
+                    reader.beginArray();
+                    if (reader.hasNext()) {
+                        readLeg(reader, route.steps);
+                    }
+                    while (reader.hasNext()) {
+                        reader.skipValue();
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return route;
+    }
+
+    /**
+     * Décode la géométrie directement dans les tableaux : chaîne polyline/polyline6
+     * ou objet GeoJSON (coordinates : [lng, lat], ...)
+     */
+    private static RouteGeometry readGeometry(JsonReader reader, int polylinePrecision) throws IOException {
+        if (reader.peek() == JsonToken.STRING) {
+            return PolylineDecoder.decode(reader.nextString(), polylinePrecision);
+        }
+
+        RouteGeometry.Builder builder = new RouteGeometry.Builder();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("coordinates")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    reader.beginArray();
+                    double lng = reader.nextDouble();
+                    double lat = reader.nextDouble();
+                    while (reader.hasNext()) {
+                        reader.skipValue();
+                    }
+                    reader.endArray();
+                    builder.add(lat, lng);
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return builder.build();
+    }
+
+    private static void readLeg(JsonReader reader, List<StepData> steps) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("steps")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    steps.add(readStep(reader));
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static StepData readStep(JsonReader reader) throws IOException {
+        StepData step = new StepData();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "name":
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                    } else {
+                        step.name = reader.nextString();
+                    }
+                    break;
+                case "distance":
+                    step.distance = reader.nextDouble();
+                    break;
+                case "geometry":
+                    step.vertexCount = countGeometryVertices(reader);
+                    break;
+                case "maneuver":
+                    readManeuver(reader, step);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return step;
+    }
+
+    /**
+     * Compte les points de la géométrie d'une étape sans les stocker
+     */
+    private static int countGeometryVertices(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.STRING) {
+            return PolylineDecoder.countVertices(reader.nextString());
+        }
+
+        int count = -1;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("coordinates")) {
+                count = 0;
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    reader.skipValue();
+                    count++;
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return count;
+    }
+
+    private static void readManeuver(JsonReader reader, StepData step) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("type")) {
+                step.maneuverType = reader.nextString();
+            } else if (name.equals("location")) {
+                reader.beginArray();
+                step.maneuverLng = reader.nextDouble();
+                step.maneuverLat = reader.nextDouble();
+                step.hasLocation = true;
+                while (reader.hasNext()) {
+                    reader.skipValue();
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Données brutes d'une route : l'ordre des clés JSON n'étant pas garanti,
+     * les étapes sont rattachées à la géométrie une fois la route entièrement lue
+     */
+    private static class RouteData {
+        double distanceMeters;
+        double durationSeconds;
+        RouteGeometry geometry = RouteGeometry.EMPTY;
+        final List<StepData> steps = new ArrayList<>();
+
+        DirectionsHelper.RouteInfo toRouteInfo() {
+            DirectionsHelper.RouteInfo routeInfo = new DirectionsHelper.RouteInfo();
+            routeInfo.distanceMeters = distanceMeters;
+            routeInfo.durationSeconds = durationSeconds;
+            routeInfo.distance = RouteText.formatDistance(distanceMeters);
+            routeInfo.duration = RouteText.formatDuration(durationSeconds);
+            routeInfo.setGeometry(geometry);
+
+            routeInfo.stepStartIndices = new int[steps.size()];
+            int previousStart = 0;
+            int expectedStart = 0;
+            for (int i = 0; i < steps.size(); i++) {
+                StepData step = steps.get(i);
+
+                int stepStart = locateStepStart(geometry, step.hasLocation,
+                        step.maneuverLat, step.maneuverLng, expectedStart, previousStart);
+                routeInfo.stepStartIndices[i] = stepStart;
+                previousStart = stepStart;
+                expectedStart = step.vertexCount > 0 ? stepStart + step.vertexCount - 1 : -1;
+
+                routeInfo.steps.add(RouteText.formatInstruction(i, step.maneuverType, step.name, step.distance));
+            }
+
+            return routeInfo;
+        }
+    }
+
+    private static class StepData {
+        String maneuverType = "";
+        String name = "Route sans nom";
+        double distance;
+        int vertexCount = -1;
+        boolean hasLocation;
+        double maneuverLat;
+        double maneuverLng;
+    }
+
+    // ==================== Parser par arbre (secours) ====================
+
+    /**
+     * Parse la réponse OSRM complète avec org.json
+     */
+    static DirectionsHelper.RouteInfo parseTree(String jsonResponse, int polylinePrecision) throws Exception {
+        JSONObject json = new JSONObject(jsonResponse);
+        String code = json.getString("code");
+
+        if (!code.equals("Ok")) {
+            throw new RoutingException("OSRM Status: " + code);
+        }
+
+        DirectionsHelper.RouteInfo routeInfo = new DirectionsHelper.RouteInfo();
+        JSONArray routes = json.getJSONArray("routes");
+
+        if (routes.length() > 0) {
+            JSONObject route = routes.getJSONObject(0);
+
+            // Distance en mètres
+            double distanceMeters = route.getDouble("distance");
+            routeInfo.distanceMeters = distanceMeters;
+            routeInfo.distance = RouteText.formatDistance(distanceMeters);
+
+            // Durée en secondes
+            double durationSeconds = route.getDouble("duration");
+            routeInfo.durationSeconds = durationSeconds;
+            routeInfo.duration = RouteText.formatDuration(durationSeconds);
+
+            // Géométrie (coordonnées du tracé)
+            Object geometry = route.get("geometry");
+            if (geometry instanceof String) {
+                routeInfo.setGeometry(PolylineDecoder.decode((String) geometry, polylinePrecision));
+            } else {
+                JSONArray coordinates = ((JSONObject) geometry).getJSONArray("coordinates");
+
+                RouteGeometry.Builder geometryBuilder = new RouteGeometry.Builder(coordinates.length());
+                for (int i = 0; i < coordinates.length(); i++) {
+                    JSONArray coord = coordinates.getJSONArray(i);
+                    double lng = coord.getDouble(0);
+                    double lat = coord.getDouble(1);
+                    geometryBuilder.add(lat, lng);
+                }
+                routeInfo.setGeometry(geometryBuilder.build());
+            }
+
+            // Étapes
+            JSONArray legs = route.getJSONArray("legs");
+            if (legs.length() > 0) {
+                JSONObject leg = legs.getJSONObject(0);
+                JSONArray steps = leg.getJSONArray("steps");
+                routeInfo.stepStartIndices = new int[steps.length()];
+                int previousStart = 0;
+                int expectedStart = 0;
+
+                for (int i = 0; i < steps.length(); i++) {
+                    JSONObject step = steps.getJSONObject(i);
+                    JSONObject maneuverJson = step.getJSONObject("maneuver");
+                    String maneuver = maneuverJson.optString("type", "");
+
+                    // Début de l'étape dans la géométrie globale (les géométries des
+                    // étapes se suivent en partageant leur point de jonction)
+                    JSONArray location = maneuverJson.optJSONArray("location");
+                    boolean hasLocation = location != null && location.length() >= 2;
+                    int stepStart = locateStepStart(routeInfo.geometry, hasLocation,
+                            hasLocation ? location.getDouble(1) : 0,
+                            hasLocation ? location.getDouble(0) : 0,
+                            expectedStart, previousStart);
+                    routeInfo.stepStartIndices[i] = stepStart;
+                    previousStart = stepStart;
+                    int vertexCount = stepVertexCount(step);
+                    expectedStart = vertexCount > 0 ? stepStart + vertexCount - 1 : -1;
+
+                    String name = step.optString("name", "Route sans nom");
+                    double stepDistance = step.getDouble("distance");
+                    routeInfo.steps.add(RouteText.formatInstruction(i, maneuver, name, stepDistance));
+                }
+            }
+        }
+
+        return routeInfo;
+    }
+
+    /**
+     * Nombre de points de la géométrie d'une étape (-1 si absente)
+     */
+    private static int stepVertexCount(JSONObject step) {
+        Object encoded = step.opt("geometry");
+        if (encoded instanceof String) {
+            return PolylineDecoder.countVertices((String) encoded);
+        }
+        JSONObject geometry = step.optJSONObject("geometry");
+        JSONArray coordinates = geometry != null ? geometry.optJSONArray("coordinates") : null;
+        return coordinates != null ? coordinates.length() : -1;
+    }
+
+    // ==================== Utilitaires communs ====================
+
+    /**
+     * Trouve l'index du premier point d'une étape dans la géométrie globale
+     * @param expectedStart Index déduit de la géométrie de l'étape précédente (-1 si inconnu)
+     * @param previousStart Début de l'étape précédente
+     */
+    static int locateStepStart(RouteGeometry geometry, boolean hasLocation, double lat, double lng,
+                               int expectedStart, int previousStart) {
+        int lastIndex = Math.max(geometry.size() - 1, 0);
+        if (!hasLocation || geometry.isEmpty()) {
+            return Math.min(expectedStart >= 0 ? expectedStart : previousStart, lastIndex);
+        }
+
+        // Affiner autour de l'index attendu avec maneuver.location,
+        // ou chercher vers l'avant si la géométrie de l'étape est absente
+        int from = Math.min(previousStart, lastIndex);
+        int to = lastIndex;
+        if (expectedStart >= 0) {
+            from = Math.min(Math.max(previousStart, expectedStart - 2), lastIndex);
+            to = Math.min(lastIndex, expectedStart + 2);
+        }
+
+        double[] latitudes = geometry.getLatitudes();
+        double[] longitudes = geometry.getLongitudes();
+        int best = from;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i = from; i <= to; i++) {
+            double dLat = latitudes[i] - lat;
+            double dLng = longitudes[i] - lng;
+            double distance = dLat * dLat + dLng * dLng;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return best;
+    }
+}
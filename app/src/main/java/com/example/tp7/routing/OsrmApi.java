@@ -0,0 +1,26 @@
+package com.example.tp7.routing;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.http.GET;
+import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
+
+/**
+ * API OSRM /route (réponse brute, parsée en flux par l'appelant)
+ */
+public interface OsrmApi {
+
+    /**
+     * @param profile Profil OSRM (driving, foot...)
+     * @param coordinates "lng,lat;lng,lat" (non ré-encodé : ',' et ';' sont attendus tels quels)
+     */
+    @Streaming
+    @GET("route/v1/{profile}/{coordinates}")
+    Call<ResponseBody> route(@Path("profile") String profile,
+                             @Path(value = "coordinates", encoded = true) String coordinates,
+                             @Query("overview") String overview,
+                             @Query("steps") boolean steps,
+                             @Query("geometries") String geometries);
+}
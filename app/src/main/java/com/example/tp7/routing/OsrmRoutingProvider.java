@@ -0,0 +1,147 @@
+package com.example.tp7.routing;
+
+import android.util.Log;
+import android.util.MalformedJsonException;
+
+import com.example.tp7.DirectionsHelper;
+import com.example.tp7.route.PolylineDecoder;
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.IOException;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Itinéraires calculés par un serveur OSRM (API /route/v1)
+ * URL de base configurable : serveur de démonstration public par défaut,
+ * cluster interne ou serveur local de test (LocalRoutingServer, variante debug)
+ */
+public class OsrmRoutingProvider implements RoutingProvider {
+
+    private static final String TAG = "OsrmRoutingProvider";
+
+    // API GRATUITE : OSRM (Open Source Routing Machine)
+    public static final String DEFAULT_BASE_URL = "https://router.project-osrm.org/";
+    public static final String DEFAULT_PROFILE = "driving";
+
+    /**
+     * Format de la géométrie demandé à OSRM (paramètre geometries)
+     */
+    public enum GeometryFormat {
+        // Tableaux de coordonnées JSON : le plus verbeux
+        GEOJSON("geojson", 0),
+        // Polyligne encodée, précision 1e-5
+        POLYLINE("polyline", PolylineDecoder.PRECISION_5),
+        // Polyligne encodée, précision 1e-6 (~10 cm)
+        POLYLINE6("polyline6", PolylineDecoder.PRECISION_6);
+
+        final String queryValue;
+        final int precision;
+
+        GeometryFormat(String queryValue, int precision) {
+            this.queryValue = queryValue;
+            this.precision = precision;
+        }
+    }
+
+    private final OsrmApi api;
+    private final String baseUrl;
+    private final String profile;
+    private volatile boolean streamingParserEnabled = true;
+    private volatile GeometryFormat geometryFormat = GeometryFormat.POLYLINE6;
+
+    public OsrmRoutingProvider() {
+        this(DEFAULT_BASE_URL, DEFAULT_PROFILE);
+    }
+
+    /**
+     * @param baseUrl URL du serveur, terminée par "/" (ex : "https://osrm.example.com/")
+     * @param profile Profil OSRM (driving, foot, bike...)
+     */
+    public OsrmRoutingProvider(String baseUrl, String profile) {
+        this.api = RoutingHttpClient.createApi(baseUrl, OsrmApi.class);
+        this.baseUrl = baseUrl;
+        this.profile = profile;
+    }
+
+    /**
+     * Active le parser JSON en flux (par défaut) ; false : parser org.json uniquement
+     */
+    public void setStreamingParserEnabled(boolean enabled) {
+        streamingParserEnabled = enabled;
+    }
+
+    /**
+     * Choisit le format de géométrie des prochaines requêtes (polyline6 par défaut)
+     */
+    public void setGeometryFormat(GeometryFormat format) {
+        geometryFormat = format;
+    }
+
+    @Override
+    public String getCacheKey() {
+        return "osrm:" + baseUrl + profile;
+    }
+
+    @Override
+    public DirectionsHelper.RouteInfo getRoute(LatLng origin, LatLng destination, RequestContext request)
+            throws RoutingException, IOException {
+        // Format OSRM : lng,lat;lng,lat
+        String coordinates = origin.longitude + "," + origin.latitude + ";" +
+                destination.longitude + "," + destination.latitude;
+        GeometryFormat format = geometryFormat;
+
+        if (streamingParserEnabled) {
+            try {
+                return fetchRoute(coordinates, format, true, request);
+            } catch (RoutingException e) {
+                throw e;
+            } catch (MalformedJsonException | IllegalStateException | IllegalArgumentException e) {
+                // Échec de parsing seulement (NumberFormatException comprise) : nouvelle
+                // tentative avec le parser par arbre
+                if (request.isCancelled()) {
+                    return null;
+                }
+                Log.w(TAG, "Streaming parse failed, falling back to tree parser", e);
+            } catch (IOException e) {
+                // Erreur réseau (délai, connexion coupée, DNS) : pas de seconde requête
+                throw e;
+            } catch (Exception e) {
+                throw new RoutingException("Erreur de parsing: " + e.getMessage(), e);
+            }
+        }
+
+        try {
+            return fetchRoute(coordinates, format, false, request);
+        } catch (RoutingException | IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RoutingException("Erreur de parsing: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Exécute la requête OSRM et parse la réponse
+     * @param streaming true : parsing au fil de la lecture, false : parser par arbre
+     */
+    private DirectionsHelper.RouteInfo fetchRoute(String coordinates, GeometryFormat format,
+                                                  boolean streaming, RequestContext request) throws Exception {
+        Call<ResponseBody> call = api.route(profile, coordinates, "full", true, format.queryValue);
+        Response<ResponseBody> response = request.execute(call);
+
+        try (ResponseBody body = response.body()) {
+            if (!response.isSuccessful() || body == null) {
+                throw new RoutingException("Erreur HTTP: " + response.code());
+            }
+
+            if (streaming) {
+                return OSRMResponseParser.parseStream(body.charStream(), format.precision);
+            }
+            return OSRMResponseParser.parseTree(body.string(), format.precision);
+        } finally {
+            request.release(call);
+        }
+    }
+}
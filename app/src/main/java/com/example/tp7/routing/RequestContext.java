@@ -0,0 +1,57 @@
+package com.example.tp7.routing;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * État partagé par les appels d'une même requête d'itinéraire
+ * Les appels HTTP exécutés via execute() sont annulés avec la requête,
+ * ce qui débloque immédiatement les lectures en cours
+ */
+public class RequestContext {
+
+    private volatile boolean cancelled;
+    private final Set<Call<?>> activeCalls = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Call<?> call : activeCalls) {
+            call.cancel();
+        }
+    }
+
+    /**
+     * Exécute un appel en le rattachant à la requête ; release() doit être
+     * appelé une fois la réponse consommée
+     */
+    public <T> Response<T> execute(Call<T> call) throws IOException {
+        if (cancelled) {
+            throw new InterruptedIOException("Requête annulée");
+        }
+        activeCalls.add(call);
+        try {
+            // Annulation survenue entre le test et l'enregistrement
+            if (cancelled) {
+                call.cancel();
+            }
+            return call.execute();
+        } catch (IOException | RuntimeException e) {
+            activeCalls.remove(call);
+            throw e;
+        }
+    }
+
+    public void release(Call<?> call) {
+        activeCalls.remove(call);
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.tp7.routing;
+
+import android.util.Log;
+
+import com.example.tp7.DirectionsHelper;
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache disque des itinéraires
+ * Clé : source de la route (fournisseur, profil) et origine et destination ramenées
+ * sur une grille (par défaut ~25 m), pour qu'une même demande faite d'un point voisin
+ * réutilise la route en cache, mais pas celle d'un autre fournisseur
+ * Un fichier par route : date d'écriture (long) puis route au format RouteCodec
+ * Taille totale bornée (les fichiers les moins récemment utilisés, d'après leur date de
+ * modification, sont supprimés) ; validité comptée depuis l'écriture, pas depuis la dernière lecture
+ */
+public class RouteCache {
+
+    private static final String TAG = "RouteCache";
+
+    private static final String FILE_PREFIX = "route_";
+    private static final String FILE_SUFFIX = ".bin";
+
+    public static final double DEFAULT_GRID_METERS = 25;
+    private static final long DEFAULT_MAX_BYTES = 4L * 1024 * 1024;
+    private static final long DEFAULT_TTL_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private static final double METERS_PER_DEGREE = 111320.0;
+    // En-tête d'une entrée : date d'écriture (ms)
+    private static final int HEADER_BYTES = 8;
+
+    private final File directory;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private volatile double gridMeters;
+
+    public RouteCache(File directory) {
+        this(directory, DEFAULT_GRID_METERS, DEFAULT_MAX_BYTES, DEFAULT_TTL_MILLIS);
+    }
+
+    public RouteCache(File directory, double gridMeters, long maxBytes, long ttlMillis) {
+        this.directory = directory;
+        this.gridMeters = gridMeters;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Taille de la grille de quantification (mètres) ; une grille plus large
+     * augmente le taux de succès au prix d'un départ moins précis
+     */
+    public void setGridMeters(double gridMeters) {
+        if (gridMeters > 0) {
+            this.gridMeters = gridMeters;
+        }
+    }
+
+    public double getGridMeters() {
+        return gridMeters;
+    }
+
+    /**
+     * Route en cache pour ce trajet (null si absente, expirée ou illisible)
+     * @param source Identité de la source des routes (voir RoutingProvider.getCacheKey())
+     */
+    public synchronized DirectionsHelper.RouteInfo get(String source, LatLng origin, LatLng destination) {
+        File file = fileFor(source, origin, destination);
+        if (!file.exists()) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if (isExpired(in.readLong(), now)) {
+                file.delete();
+                return null;
+            }
+            byte[] data = new byte[(int) file.length() - HEADER_BYTES];
+            in.readFully(data);
+            DirectionsHelper.RouteInfo routeInfo = RouteCodec.decode(data);
+            // Dernière utilisation, pour l'éviction uniquement
+            file.setLastModified(now);
+            return routeInfo;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Unreadable cache entry " + file.getName(), e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Enregistre une route (écriture atomique : fichier temporaire puis renommage)
+     */
+    public synchronized void put(String source, LatLng origin, LatLng destination,
+                                 DirectionsHelper.RouteInfo routeInfo) {
+        if (routeInfo == null || routeInfo.geometry.isEmpty()) {
+            return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Cannot create cache directory " + directory);
+            return;
+        }
+
+        File file = fileFor(source, origin, destination);
+        File temp = new File(directory, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(temp))) {
+            out.writeLong(System.currentTimeMillis());
+            out.write(RouteCodec.encode(routeInfo));
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot write cache entry " + file.getName(), e);
+            temp.delete();
+            return;
+        }
+
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            return;
+        }
+        trim();
+    }
+
+    public synchronized void clear() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Supprime les entrées expirées puis les moins récemment utilisées
+     * tant que la taille totale dépasse la limite
+     */
+    private void trim() {
+        File[] files = directory.listFiles((dir, name) ->
+                name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX));
+        if (files == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (total <= maxBytes && !isExpired(readWrittenAt(file), now)) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    /**
+     * Entrée expirée, ou datée du futur (horloge modifiée, fichier d'un ancien format)
+     */
+    private boolean isExpired(long writtenAt, long now) {
+        return writtenAt > now || now - writtenAt > ttlMillis;
+    }
+
+    /**
+     * Date d'écriture d'une entrée (0 si illisible : considérée comme expirée)
+     */
+    private static long readWrittenAt(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readLong();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // ==================== Clé ====================
+
+    private File fileFor(String source, LatLng origin, LatLng destination) {
+        return new File(directory, FILE_PREFIX + key(source, origin, destination) + FILE_SUFFIX);
+    }
+
+    /**
+     * Clé de cache : empreinte de la source, index de cellule de l'origine et de la destination
+     */
+    String key(String source, LatLng origin, LatLng destination) {
+        double grid = gridMeters;
+        return String.format(Locale.ROOT, "%08x_%d_%s_%s", source.hashCode(),
+                Math.round(grid), cell(origin, grid), cell(destination, grid));
+    }
+
+    /**
+     * Cellule de la grille contenant un point (cellules d'environ grid x grid mètres)
+     */
+    private static String cell(LatLng point, double grid) {
+        double latStep = grid / METERS_PER_DEGREE;
+        long latIndex = (long) Math.floor(point.latitude / latStep);
+
+        // Largeur d'un degré de longitude à la latitude (quantifiée) de la cellule
+        double cellLatitude = Math.toRadians(latIndex * latStep);
+        double lngStep = latStep / Math.max(Math.cos(cellLatitude), 0.01);
+        long lngIndex = (long) Math.floor(point.longitude / lngStep);
+
+        return latIndex + "_" + lngIndex;
+    }
+}
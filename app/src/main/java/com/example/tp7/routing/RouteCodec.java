@@ -0,0 +1,282 @@
+package com.example.tp7.routing;
+
+import com.example.tp7.DirectionsHelper;
+import com.example.tp7.route.RouteDistanceTable;
+import com.example.tp7.route.RouteGeometry;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Format binaire compact d'un itinéraire
+ *
+ * En-tête : magic "RTE" + version (4 octets), flags (1 octet)
+ * Résumé : distance (m) et durée (s) en double, textes affichés
+ * Géométrie : nombre de points puis, pour chaque point, écart avec le précédent
+ *             en microdegrés (lat, lng), entiers zigzag varint
+ * Distances cumulées : longueur de chaque segment en centimètres (varint)
+ * Étapes : nombre d'étapes puis, pour chacune, écart d'index de début (varint) et texte
+ *
+ * Les textes sont en UTF-8 préfixés par leur longueur (varint)
+ * Une route de 2 000 points occupe ~10 Ko (contre ~100 Ko en GeoJSON)
+ */
+public final class RouteCodec {
+
+    private static final int MAGIC = 0x52544501; // "RTE" + version 1
+    private static final int FLAG_STEP_STARTS = 1;
+    private static final int FLAG_DISTANCES = 1 << 1;
+
+    private static final double E6 = 1e6;
+    private static final double CENTIMETERS = 100.0;
+
+    private RouteCodec() {}
+
+    // ==================== Encodage ====================
+
+    public static byte[] encode(DirectionsHelper.RouteInfo routeInfo) {
+        RouteGeometry geometry = routeInfo.geometry;
+        int count = geometry.size();
+        int stepCount = routeInfo.steps.size();
+        boolean hasStarts = routeInfo.stepStartIndices != null
+                && routeInfo.stepStartIndices.length == stepCount;
+
+        // ~5 octets par point (coordonnées + distance), textes en sus
+        ByteSink out = new ByteSink(64 + count * 6 + stepCount * 48);
+        out.writeInt(MAGIC);
+        out.writeByte((hasStarts ? FLAG_STEP_STARTS : 0) | FLAG_DISTANCES);
+
+        out.writeDouble(routeInfo.distanceMeters);
+        out.writeDouble(routeInfo.durationSeconds);
+        out.writeString(routeInfo.distance);
+        out.writeString(routeInfo.duration);
+
+        // Géométrie : deltas en microdegrés
+        double[] latitudes = geometry.getLatitudes();
+        double[] longitudes = geometry.getLongitudes();
+        out.writeVarInt(count);
+        long previousLat = 0;
+        long previousLng = 0;
+        for (int i = 0; i < count; i++) {
+            long lat = Math.round(latitudes[i] * E6);
+            long lng = Math.round(longitudes[i] * E6);
+            out.writeSignedVarLong(lat - previousLat);
+            out.writeSignedVarLong(lng - previousLng);
+            previousLat = lat;
+            previousLng = lng;
+        }
+
+        // Distances cumulées : longueurs des segments
+        double[] cumulative = routeInfo.getDistanceTable().getCumulativeDistances();
+        for (int i = 1; i < count; i++) {
+            long segment = Math.round((cumulative[i] - cumulative[i - 1]) * CENTIMETERS);
+            out.writeVarLong(Math.max(segment, 0));
+        }
+
+        // Étapes
+        out.writeVarInt(stepCount);
+        int previousStart = 0;
+        for (int i = 0; i < stepCount; i++) {
+            if (hasStarts) {
+                int start = routeInfo.stepStartIndices[i];
+                out.writeSignedVarLong(start - previousStart);
+                previousStart = start;
+            }
+            out.writeString(routeInfo.steps.get(i));
+        }
+
+        return out.toByteArray();
+    }
+
+    // ==================== Décodage ====================
+
+    public static DirectionsHelper.RouteInfo decode(byte[] data) throws IOException {
+        return decode(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Décode une route depuis un buffer (tableau, fichier mappé en mémoire...)
+     * La position du buffer est avancée jusqu'à la fin de la route
+     */
+    public static DirectionsHelper.RouteInfo decode(ByteBuffer in) throws IOException {
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Format de route inconnu");
+            }
+            int flags = in.get() & 0xff;
+
+            DirectionsHelper.RouteInfo routeInfo = new DirectionsHelper.RouteInfo();
+            routeInfo.distanceMeters = in.getDouble();
+            routeInfo.durationSeconds = in.getDouble();
+            routeInfo.distance = readString(in);
+            routeInfo.duration = readString(in);
+
+            int count = readVarInt(in);
+            // Au moins 2 octets par point : refuse une taille corrompue avant d'allouer
+            if (count < 0 || count > in.remaining() / 2) {
+                throw new IOException("Nombre de points invalide: " + count);
+            }
+            double[] latitudes = new double[count];
+            double[] longitudes = new double[count];
+            long lat = 0;
+            long lng = 0;
+            for (int i = 0; i < count; i++) {
+                lat += readSignedVarLong(in);
+                lng += readSignedVarLong(in);
+                latitudes[i] = lat / E6;
+                longitudes[i] = lng / E6;
+            }
+            RouteGeometry geometry = new RouteGeometry(latitudes, longitudes, count);
+            routeInfo.setGeometry(geometry);
+
+            if ((flags & FLAG_DISTANCES) != 0) {
+                double[] cumulative = new double[count];
+                long total = 0;
+                for (int i = 1; i < count; i++) {
+                    total += readVarLong(in);
+                    cumulative[i] = total / CENTIMETERS;
+                }
+                routeInfo.setDistanceTable(new RouteDistanceTable(cumulative));
+            }
+
+            int stepCount = readVarInt(in);
+            // Au moins 1 octet par étape
+            if (stepCount < 0 || stepCount > in.remaining()) {
+                throw new IOException("Nombre d'étapes invalide: " + stepCount);
+            }
+            boolean hasStarts = (flags & FLAG_STEP_STARTS) != 0;
+            if (hasStarts) {
+                routeInfo.stepStartIndices = new int[stepCount];
+            }
+            int start = 0;
+            for (int i = 0; i < stepCount; i++) {
+                if (hasStarts) {
+                    start += (int) readSignedVarLong(in);
+                    routeInfo.stepStartIndices[i] = start;
+                }
+                routeInfo.steps.add(readString(in));
+            }
+
+            return routeInfo;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Route tronquée ou corrompue", e);
+        }
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        long value = readVarLong(in);
+        // Un varint de 10 octets peut lever le bit de signe : valeur négative refusée aussi
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Valeur hors limites: " + value);
+        }
+        return (int) value;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        while (shift < 64) {
+            byte b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+        throw new IllegalArgumentException("Varint trop long");
+    }
+
+    private static long readSignedVarLong(ByteBuffer in) {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readVarInt(in);
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    /**
+     * Tampon d'écriture extensible (big-endian, comme ByteBuffer)
+     */
+    private static class ByteSink {
+        private byte[] buffer;
+        private int size;
+
+        ByteSink(int capacity) {
+            buffer = new byte[Math.max(capacity, 32)];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensureCapacity(4);
+            buffer[size++] = (byte) (value >>> 24);
+            buffer[size++] = (byte) (value >>> 16);
+            buffer[size++] = (byte) (value >>> 8);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeDouble(double value) {
+            writeLong(Double.doubleToLongBits(value));
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xffffffffL);
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7fL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        // Zigzag : petits écarts négatifs encodés sur peu d'octets
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.tp7.routing;
+
+import com.example.tp7.DirectionsHelper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Routes partagées entre écrans du même processus
+ * L'écran qui a calculé la route la dépose et transmet seulement son identifiant
+ * (extra d'Intent) : l'écran suivant récupère le même objet, sans copie ni
+ * nouveau calcul. Après la mort du processus l'identifiant ne correspond plus
+ * à rien : l'appelant doit alors recalculer la route
+ */
+public final class RouteStore {
+
+    // Quelques routes suffisent (écran carte + écran AR, rotations)
+    private static final int MAX_ROUTES = 4;
+
+    private static final Map<Long, DirectionsHelper.RouteInfo> ROUTES =
+            new LinkedHashMap<Long, DirectionsHelper.RouteInfo>(8, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, DirectionsHelper.RouteInfo> eldest) {
+                    return size() > MAX_ROUTES;
+                }
+            };
+
+    private static long nextId = 1;
+
+    private RouteStore() {}
+
+    /**
+     * Dépose une route et renvoie son identifiant
+     */
+    public static synchronized long put(DirectionsHelper.RouteInfo routeInfo) {
+        long id = nextId++;
+        ROUTES.put(id, routeInfo);
+        return id;
+    }
+
+    /**
+     * Route déposée sous cet identifiant (null si inconnue ou évincée)
+     */
+    public static synchronized DirectionsHelper.RouteInfo get(long id) {
+        return ROUTES.get(id);
+    }
+
+    public static synchronized void remove(long id) {
+        ROUTES.remove(id);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.tp7.routing;
+
+/**
+ * Textes affichés pour un itinéraire (distances, durées, instructions),
+ * communs à tous les fournisseurs de routage
+ */
+public final class RouteText {
+
+    private RouteText() {}
+
+    /**
+     * Instruction numérotée : "2. Tourner à gauche Rue X (350 m)"
+     */
+    public static String formatInstruction(int index, String maneuver, String name, double distance) {
+        return (index + 1) + ". " +
+                translateManeuver(maneuver) + " " + name +
+                " (" + formatDistance(distance) + ")";
+    }
+
+    /**
+     * Formate la distance
+     */
+    public static String formatDistance(double meters) {
+        if (meters < 1000) {
+            return String.format("%.0f m", meters);
+        } else {
+            return String.format("%.1f km", meters / 1000);
+        }
+    }
+
+    /**
+     * Formate la durée
+     */
+    public static String formatDuration(double seconds) {
+        int hours = (int) (seconds / 3600);
+        int minutes = (int) ((seconds % 3600) / 60);
+
+        if (hours > 0) {
+            return String.format("%d h %d min", hours, minutes);
+        } else {
+            return String.format("%d min", minutes);
+        }
+    }
+
+    /**
+     * Traduit les manœuvres en français
+     */
+    public static String translateManeuver(String maneuver) {
+        switch (maneuver) {
+            case "turn":
+                return "Tourner";
+            case "new name":
+                return "Continuer sur";
+            case "depart":
+                return "Partir sur";
+            case "arrive":
+                return "Arriver à";
+            case "merge":
+                return "Rejoindre";
+            case "on ramp":
+                return "Prendre la rampe";
+            case "off ramp":
+                return "Sortir";
+            case "fork":
+                return "Bifurquer";
+            case "end of road":
+                return "Fin de route";
+            case "continue":
+                return "Continuer";
+            case "roundabout":
+                return "Rond-point";
+            case "rotary":
+                return "Giratoire";
+            case "turn left":
+                return "Tourner à gauche";
+            case "turn right":
+                return "Tourner à droite";
+            default:
+                return "Suivre";
+        }
+    }
+}
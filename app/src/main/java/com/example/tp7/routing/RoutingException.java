@@ -0,0 +1,16 @@
+package com.example.tp7.routing;
+
+/**
+ * Échec d'un fournisseur de routage ou de géocodage, avec un message
+ * affichable tel quel (statut OSRM, code HTTP...)
+ */
+public class RoutingException extends Exception {
+
+    public RoutingException(String message) {
+        super(message);
+    }
+
+    public RoutingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.tp7.routing;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécuteurs partagés des requêtes d'itinéraire
+ * Pool borné (threads et file d'attente) dédié au calcul de route, indépendant
+ * de l'exécuteur série des AsyncTask ; les résultats sont remis sur le thread principal
+ */
+public final class RoutingExecutors {
+
+    private static final int ROUTING_THREADS = 2;
+    private static final int ROUTING_QUEUE_CAPACITY = 8;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    // Recherches origine et destination en parallèle
+    private static final int GEOCODING_THREADS = 2;
+    private static final int GEOCODING_QUEUE_CAPACITY = 8;
+
+    private static final ThreadPoolExecutor ROUTING_EXECUTOR = createExecutor(
+            "routing", ROUTING_THREADS, ROUTING_QUEUE_CAPACITY);
+
+    // Pool séparé : une tâche de routage attend ses géocodages, les soumettre au
+    // même pool borné pourrait bloquer tous ses threads
+    private static final ThreadPoolExecutor GEOCODING_EXECUTOR = createExecutor(
+            "geocoding", GEOCODING_THREADS, GEOCODING_QUEUE_CAPACITY);
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private RoutingExecutors() {}
+
+    /**
+     * Exécuteur des requêtes d'itinéraire (rejette au-delà de la capacité de la file)
+     */
+    public static ThreadPoolExecutor routing() {
+        return ROUTING_EXECUTOR;
+    }
+
+    /**
+     * Exécuteur des recherches d'adresses lancées par les requêtes d'itinéraire
+     */
+    public static ThreadPoolExecutor geocoding() {
+        return GEOCODING_EXECUTOR;
+    }
+
+    /**
+     * Exécute une action sur le thread principal
+     */
+    public static void postToMain(Runnable action) {
+        MAIN_HANDLER.post(action);
+    }
+
+    static ThreadPoolExecutor createExecutor(String name, int threads, int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new NamedThreadFactory(name),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Pas de threads inactifs en permanence
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger counter = new AtomicInteger(1);
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
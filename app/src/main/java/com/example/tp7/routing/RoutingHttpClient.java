@@ -0,0 +1,138 @@
+package com.example.tp7.routing;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Retrofit;
+
+/**
+ * Client HTTP partagé des appels de routage et de géocodage
+ * - connexions keep-alive réutilisées entre requêtes (pool)
+ * - compression gzip (Accept-Encoding ajouté et réponse décompressée par OkHttp)
+ * - délais de connexion, de lecture et d'appel complet
+ * - nouvelles tentatives avec attente exponentielle (erreurs réseau, 429, 5xx)
+ */
+public final class RoutingHttpClient {
+
+    // Nominatim exige un User-Agent identifiant l'application
+    private static final String USER_AGENT = "TP7MapApp/1.0";
+
+    private static final int CONNECT_TIMEOUT_SECONDS = 10;
+    private static final int READ_TIMEOUT_SECONDS = 20;
+    private static final int CALL_TIMEOUT_SECONDS = 45;
+
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+    private static final int KEEP_ALIVE_MINUTES = 5;
+
+    private static final int MAX_RETRIES = 2;
+    private static final long INITIAL_BACKOFF_MILLIS = 400;
+
+    private static volatile OkHttpClient client;
+
+    private RoutingHttpClient() {}
+
+    public static OkHttpClient client() {
+        if (client == null) {
+            synchronized (RoutingHttpClient.class) {
+                if (client == null) {
+                    client = new OkHttpClient.Builder()
+                            .connectionPool(new ConnectionPool(
+                                    MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                            .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                            .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                            .callTimeout(CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                            .retryOnConnectionFailure(true)
+                            .addInterceptor(new UserAgentInterceptor())
+                            .addInterceptor(new RetryInterceptor(MAX_RETRIES, INITIAL_BACKOFF_MILLIS))
+                            .build();
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Crée une API Retrofit pour un serveur, sur le client partagé
+     * Réponses brutes (ResponseBody) : le parsing reste à la charge de l'appelant
+     */
+    public static <T> T createApi(String baseUrl, Class<T> api) {
+        return new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .client(client())
+                .build()
+                .create(api);
+    }
+
+    private static class UserAgentInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request().newBuilder()
+                    .header("User-Agent", USER_AGENT)
+                    .build();
+            return chain.proceed(request);
+        }
+    }
+
+    /**
+     * Nouvelles tentatives des requêtes GET : attente doublée à chaque essai
+     * (400 ms, 800 ms...), interrompue si l'appel est annulé
+     */
+    static class RetryInterceptor implements Interceptor {
+        private final int maxRetries;
+        private final long initialBackoffMillis;
+
+        RetryInterceptor(int maxRetries, long initialBackoffMillis) {
+            this.maxRetries = maxRetries;
+            this.initialBackoffMillis = initialBackoffMillis;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            if (!"GET".equals(request.method())) {
+                return chain.proceed(request);
+            }
+
+            long backoff = initialBackoffMillis;
+            for (int attempt = 0; ; attempt++) {
+                Response response;
+                try {
+                    response = chain.proceed(request);
+                } catch (IOException e) {
+                    if (attempt >= maxRetries || chain.call().isCanceled()) {
+                        throw e;
+                    }
+                    sleep(backoff);
+                    backoff *= 2;
+                    continue;
+                }
+
+                if (attempt >= maxRetries || !isRetryable(response.code())) {
+                    return response;
+                }
+                response.close();
+                sleep(backoff);
+                backoff *= 2;
+            }
+        }
+
+        private static boolean isRetryable(int code) {
+            return code == 429 || code >= 500;
+        }
+
+        private static void sleep(long millis) throws IOException {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Requête annulée");
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.tp7.routing;
+
+import com.example.tp7.DirectionsHelper;
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.IOException;
+
+/**
+ * Source d'itinéraires (serveur OSRM public, cluster interne, routage hors ligne...)
+ * Appelé sur un thread d'arrière-plan
+ */
+public interface RoutingProvider {
+
+    /**
+     * @param request Contexte de la requête, à consulter pour l'annulation
+     * @return Itinéraire, ou null si la requête a été annulée
+     * @throws RoutingException Erreur à afficher (pas d'itinéraire, statut HTTP...)
+     * @throws IOException Erreur réseau ou réponse illisible
+     */
+    DirectionsHelper.RouteInfo getRoute(LatLng origin, LatLng destination, RequestContext request)
+            throws RoutingException, IOException;
+
+    /**
+     * Identité de la source pour le cache d'itinéraires : deux sources qui peuvent
+     * donner des routes différentes (serveur, profil, région) ont des identités différentes
+     */
+    default String getCacheKey() {
+        return getClass().getName();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.tp7.route;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Décodage des polylignes (exemple de référence Google, précisions 5 et 6, erreurs)
+ */
+public class PolylineDecoderTest {
+
+    // Exemple de la documentation Google : (38.5, -120.2), (40.7, -120.95), (43.252, -126.453)
+    private static final String GOOGLE_EXAMPLE = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+
+    @Test
+    public void decodesReferenceExample() {
+        RouteGeometry geometry = PolylineDecoder.decode(GOOGLE_EXAMPLE, PolylineDecoder.PRECISION_5);
+
+        assertEquals(3, geometry.size());
+        assertEquals(38.5, geometry.getLatitude(0), 1e-9);
+        assertEquals(-120.2, geometry.getLongitude(0), 1e-9);
+        assertEquals(40.7, geometry.getLatitude(1), 1e-9);
+        assertEquals(-120.95, geometry.getLongitude(1), 1e-9);
+        assertEquals(43.252, geometry.getLatitude(2), 1e-9);
+        assertEquals(-126.453, geometry.getLongitude(2), 1e-9);
+    }
+
+    @Test
+    public void precisionSixScalesCoordinates() {
+        RouteGeometry geometry = PolylineDecoder.decode(GOOGLE_EXAMPLE, PolylineDecoder.PRECISION_6);
+
+        assertEquals(3, geometry.size());
+        assertEquals(3.85, geometry.getLatitude(0), 1e-9);
+        assertEquals(-12.02, geometry.getLongitude(0), 1e-9);
+    }
+
+    @Test
+    public void appendsToExistingBuilder() {
+        RouteGeometry.Builder builder = new RouteGeometry.Builder();
+        builder.add(1, 2);
+
+        int added = PolylineDecoder.decode(GOOGLE_EXAMPLE, PolylineDecoder.PRECISION_5, builder);
+
+        assertEquals(3, added);
+        RouteGeometry geometry = builder.build();
+        assertEquals(4, geometry.size());
+        assertEquals(1, geometry.getLatitude(0), 0);
+        assertEquals(38.5, geometry.getLatitude(1), 1e-9);
+    }
+
+    @Test
+    public void emptyStringGivesEmptyGeometry() {
+        assertEquals(0, PolylineDecoder.decode("", PolylineDecoder.PRECISION_5).size());
+        assertEquals(0, PolylineDecoder.countVertices(""));
+    }
+
+    @Test
+    public void countVerticesMatchesDecode() {
+        assertEquals(3, PolylineDecoder.countVertices(GOOGLE_EXAMPLE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMissingLongitude() {
+        // Latitude complète du premier point, longitude absente
+        PolylineDecoder.decode("_p~iF", PolylineDecoder.PRECISION_5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLatitudeCutMidValue() {
+        PolylineDecoder.decode("_p~", PolylineDecoder.PRECISION_5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLongitudeCutMidValue() {
+        // "~ps|U" est la longitude complète : sans son dernier caractère, bit de continuation levé
+        PolylineDecoder.decode("_p~iF~ps|", PolylineDecoder.PRECISION_5);
+    }
+}
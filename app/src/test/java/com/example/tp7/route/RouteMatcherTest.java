@@ -0,0 +1,128 @@
+package com.example.tp7.route;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Map-matching avec curseur : fenêtre autour du dernier segment, portions
+ * qui repassent au même endroit, confirmation de sortie de route
+ */
+public class RouteMatcherTest {
+
+    private static final double LAT = 48.85;
+    private static final double LNG = 2.35;
+    // ~51 m en longitude à cette latitude
+    private static final double STEP = 0.0007;
+    private static final double METERS_PER_DEGREE_LAT = 111320.0;
+
+    @Test
+    public void followsRouteSegmentBySegment() {
+        RouteMatcher matcher = matcher(straightRoute(10));
+        SegmentMatch match = new SegmentMatch();
+
+        for (int i = 0; i < 9; i++) {
+            assertEquals(RouteMatcher.Status.ON_ROUTE, matcher.match(LAT, LNG + (i + 0.5) * STEP, match));
+            assertEquals(i, match.segmentIndex);
+            assertEquals(i, matcher.getCursor());
+        }
+    }
+
+    @Test
+    public void staysOnOutboundLegWhereRouteDoublesBack() {
+        // Aller puis retour par la voie d'en face (~11 m au nord) : segments 0-9 puis 10-19
+        RouteGeometry.Builder builder = new RouteGeometry.Builder();
+        for (int i = 0; i <= 10; i++) {
+            builder.add(LAT, LNG + i * STEP);
+        }
+        for (int i = 9; i >= 0; i--) {
+            builder.add(LAT + 0.0001, LNG + i * STEP);
+        }
+        RouteMatcher matcher = matcher(builder.build());
+        SegmentMatch match = new SegmentMatch();
+
+        matcher.match(LAT, LNG + 0.5 * STEP, match);
+        for (int i = 1; i < 4; i++) {
+            // Plus près de la voie retour, mais celle-ci est hors de la fenêtre du curseur
+            matcher.match(LAT + 0.00007, LNG + (i + 0.5) * STEP, match);
+            assertEquals(i, match.segmentIndex);
+        }
+    }
+
+    @Test
+    public void confirmsOffRouteAfterConsecutiveFarFixes() {
+        RouteMatcher matcher = matcher(straightRoute(10));
+        SegmentMatch match = new SegmentMatch();
+        matcher.match(LAT, LNG + 2.5 * STEP, match);
+
+        // ~100 m au nord : tolérance sur deux positions, puis sortie confirmée
+        double farLat = LAT + 0.0009;
+        assertEquals(RouteMatcher.Status.ON_ROUTE, matcher.match(farLat, LNG + 3 * STEP, match));
+        assertEquals(RouteMatcher.Status.ON_ROUTE, matcher.match(farLat, LNG + 3 * STEP, match));
+        assertFalse(matcher.isOffRoute());
+        assertEquals(2, matcher.getCursor());
+        assertEquals(RouteMatcher.Status.OFF_ROUTE_DETECTED, matcher.match(farLat, LNG + 3 * STEP, match));
+        assertTrue(matcher.isOffRoute());
+        assertEquals(RouteMatcher.Status.OFF_ROUTE, matcher.match(farLat, LNG + 3 * STEP, match));
+
+        // Retour sur la route
+        assertEquals(RouteMatcher.Status.ON_ROUTE, matcher.match(LAT, LNG + 4.5 * STEP, match));
+        assertFalse(matcher.isOffRoute());
+        assertEquals(4, match.segmentIndex);
+    }
+
+    @Test
+    public void rejoinsRouteOutsideWindow() {
+        RouteMatcher matcher = matcher(straightRoute(30));
+        SegmentMatch match = new SegmentMatch();
+        matcher.match(LAT, LNG + 0.5 * STEP, match);
+
+        // ~1 km plus loin que la fenêtre avant (300 m) : recherche globale
+        assertEquals(RouteMatcher.Status.ON_ROUTE, matcher.match(LAT, LNG + 20.5 * STEP, match));
+        assertEquals(20, match.segmentIndex);
+        assertEquals(20, matcher.getCursor());
+    }
+
+    @Test
+    public void resetForgetsCursor() {
+        RouteMatcher matcher = matcher(straightRoute(10));
+        SegmentMatch match = new SegmentMatch();
+        matcher.match(LAT, LNG + 5.5 * STEP, match);
+
+        matcher.reset();
+
+        assertEquals(-1, matcher.getCursor());
+        assertFalse(matcher.isOffRoute());
+    }
+
+    @Test
+    public void emptyRouteIsAlwaysOnRoute() {
+        RouteMatcher matcher = matcher(RouteGeometry.EMPTY);
+        SegmentMatch match = new SegmentMatch();
+
+        assertEquals(RouteMatcher.Status.ON_ROUTE, matcher.match(LAT, LNG, match));
+        assertFalse(match.isValid());
+    }
+
+    private static RouteGeometry straightRoute(int count) {
+        RouteGeometry.Builder builder = new RouteGeometry.Builder(count);
+        for (int i = 0; i < count; i++) {
+            builder.add(LAT, LNG + i * STEP);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Distances cumulées calculées en projection locale (android.location indisponible en test JVM)
+     */
+    private static RouteMatcher matcher(RouteGeometry geometry) {
+        double[] cumulative = new double[geometry.size()];
+        double metersPerDegreeLng = METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(LAT));
+        for (int i = 1; i < geometry.size(); i++) {
+            double dLat = (geometry.getLatitude(i) - geometry.getLatitude(i - 1)) * METERS_PER_DEGREE_LAT;
+            double dLng = (geometry.getLongitude(i) - geometry.getLongitude(i - 1)) * metersPerDegreeLng;
+            cumulative[i] = cumulative[i - 1] + Math.sqrt(dLat * dLat + dLng * dLng);
+        }
+        return new RouteMatcher(new RouteSpatialIndex(geometry), new RouteDistanceTable(cumulative));
+    }
+}
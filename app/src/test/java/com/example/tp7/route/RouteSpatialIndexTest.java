@@ -0,0 +1,128 @@
+package com.example.tp7.route;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Index spatial des segments : la recherche par grille doit donner le même
+ * segment que la recherche exhaustive, près de la route comme loin d'elle
+ */
+public class RouteSpatialIndexTest {
+
+    private static final double ORIGIN_LAT = 48.85;
+    private static final double ORIGIN_LNG = 2.35;
+
+    @Test
+    public void gridSearchMatchesLinearSearch() {
+        Random random = new Random(3);
+        RouteGeometry geometry = randomWalk(random, 400);
+        RouteSpatialIndex index = new RouteSpatialIndex(geometry);
+        SegmentMatch grid = new SegmentMatch();
+        SegmentMatch linear = new SegmentMatch();
+
+        for (int i = 0; i < 2000; i++) {
+            // Positions autour de la route, jusqu'à ~2 km (au-delà de l'anneau maximal)
+            int near = random.nextInt(geometry.size());
+            double spread = i % 10 == 0 ? 0.02 : 0.002;
+            double latitude = geometry.getLatitude(near) + (random.nextDouble() - 0.5) * spread;
+            double longitude = geometry.getLongitude(near) + (random.nextDouble() - 0.5) * spread;
+
+            assertTrue(index.findNearestSegment(latitude, longitude, grid));
+            assertTrue(index.findNearestSegmentLinear(latitude, longitude, linear));
+            // Égalité de distance : deux segments voisins peuvent partager le point le plus proche
+            assertEquals("Position " + i, linear.distance, grid.distance, 1e-3);
+        }
+    }
+
+    @Test
+    public void projectsOntoSegmentInterior() {
+        RouteGeometry geometry = new RouteGeometry.Builder()
+                .add(ORIGIN_LAT, ORIGIN_LNG)
+                .add(ORIGIN_LAT, ORIGIN_LNG + 0.01)
+                .build();
+        RouteSpatialIndex index = new RouteSpatialIndex(geometry);
+        SegmentMatch match = new SegmentMatch();
+
+        // À mi-longueur, ~20 m au nord de la route
+        assertTrue(index.findNearestSegment(ORIGIN_LAT + 0.00018, ORIGIN_LNG + 0.005, match));
+
+        assertEquals(0, match.segmentIndex);
+        assertEquals(0.5, match.fraction, 1e-3);
+        assertEquals(ORIGIN_LAT, match.latitude, 1e-9);
+        assertEquals(ORIGIN_LNG + 0.005, match.longitude, 1e-9);
+        assertEquals(20.0, match.distance, 0.1);
+    }
+
+    @Test
+    public void clampsProjectionToSegmentEnds() {
+        RouteGeometry geometry = new RouteGeometry.Builder()
+                .add(ORIGIN_LAT, ORIGIN_LNG)
+                .add(ORIGIN_LAT, ORIGIN_LNG + 0.01)
+                .build();
+        RouteSpatialIndex index = new RouteSpatialIndex(geometry);
+        SegmentMatch match = new SegmentMatch();
+
+        index.findNearestSegment(ORIGIN_LAT, ORIGIN_LNG - 0.001, match);
+        assertEquals(0, match.fraction, 0);
+        index.findNearestSegment(ORIGIN_LAT, ORIGIN_LNG + 0.011, match);
+        assertEquals(1, match.fraction, 0);
+    }
+
+    @Test
+    public void farPositionFallsBackToLinearSearch() {
+        RouteSpatialIndex index = new RouteSpatialIndex(randomWalk(new Random(5), 50));
+        SegmentMatch grid = new SegmentMatch();
+        SegmentMatch linear = new SegmentMatch();
+
+        // ~100 km de la route
+        assertTrue(index.findNearestSegment(ORIGIN_LAT + 1, ORIGIN_LNG + 1, grid));
+        index.findNearestSegmentLinear(ORIGIN_LAT + 1, ORIGIN_LNG + 1, linear);
+
+        assertEquals(linear.segmentIndex, grid.segmentIndex);
+        assertEquals(linear.distance, grid.distance, 0);
+    }
+
+    @Test
+    public void emptyGeometryFindsNothing() {
+        RouteSpatialIndex index = new RouteSpatialIndex(RouteGeometry.EMPTY);
+        SegmentMatch match = new SegmentMatch();
+
+        assertEquals(0, index.getSegmentCount());
+        assertFalse(index.findNearestSegment(ORIGIN_LAT, ORIGIN_LNG, match));
+        assertFalse(match.isValid());
+    }
+
+    @Test
+    public void singlePointIsOneDegenerateSegment() {
+        RouteGeometry geometry = new RouteGeometry.Builder().add(ORIGIN_LAT, ORIGIN_LNG).build();
+        RouteSpatialIndex index = new RouteSpatialIndex(geometry);
+        SegmentMatch match = new SegmentMatch();
+
+        assertEquals(1, index.getSegmentCount());
+        assertTrue(index.findNearestSegment(ORIGIN_LAT + 0.0009, ORIGIN_LNG, match));
+        assertEquals(0, match.segmentIndex);
+        assertEquals(ORIGIN_LAT, match.latitude, 1e-9);
+        assertEquals(100.2, match.distance, 0.1);
+    }
+
+    /**
+     * Trajet aléatoire à pas de ~10 à 80 m, avec des demi-tours et des repassages
+     */
+    private static RouteGeometry randomWalk(Random random, int count) {
+        RouteGeometry.Builder builder = new RouteGeometry.Builder(count);
+        double latitude = ORIGIN_LAT;
+        double longitude = ORIGIN_LNG;
+        double heading = 0;
+        for (int i = 0; i < count; i++) {
+            builder.add(latitude, longitude);
+            heading += (random.nextDouble() - 0.5) * 2;
+            double step = 0.0001 + random.nextDouble() * 0.0006;
+            latitude += Math.cos(heading) * step;
+            longitude += Math.sin(heading) * step;
+        }
+        return builder.build();
+    }
+}
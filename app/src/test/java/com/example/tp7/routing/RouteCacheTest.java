@@ -0,0 +1,146 @@
+package com.example.tp7.routing;
+
+import com.example.tp7.DirectionsHelper;
+import com.example.tp7.route.RouteDistanceTable;
+import com.example.tp7.route.RouteGeometry;
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Cache disque des itinéraires : quantification de la clé, séparation par source,
+ * validité comptée depuis l'écriture, éviction des entrées les moins récemment utilisées
+ */
+public class RouteCacheTest {
+
+    private static final LatLng ORIGIN = new LatLng(48.856614, 2.352222);
+    private static final LatLng DESTINATION = new LatLng(48.858370, 2.294481);
+    private static final String SOURCE = "|osrm:https://router.project-osrm.org/driving";
+
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = File.createTempFile("route-cache", "");
+        directory.delete();
+    }
+
+    @After
+    public void deleteDirectory() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void nearbyRequestReusesEntry() {
+        RouteCache cache = new RouteCache(directory);
+        cache.put(SOURCE, ORIGIN, DESTINATION, route());
+
+        // ~1 m plus loin : même cellule de 25 m (sauf en bord de cellule, évité ici)
+        DirectionsHelper.RouteInfo cached = cache.get(SOURCE,
+                new LatLng(ORIGIN.latitude + 0.00001, ORIGIN.longitude), DESTINATION);
+
+        assertNotNull(cached);
+        assertEquals(3, cached.geometry.size());
+        assertEquals("1 km", cached.distance);
+    }
+
+    @Test
+    public void missForOtherDestination() {
+        RouteCache cache = new RouteCache(directory);
+        cache.put(SOURCE, ORIGIN, DESTINATION, route());
+
+        assertNull(cache.get(SOURCE, ORIGIN, new LatLng(48.87, 2.30)));
+    }
+
+    @Test
+    public void otherSourceDoesNotShareEntry() {
+        RouteCache cache = new RouteCache(directory);
+        cache.put(SOURCE, ORIGIN, DESTINATION, route());
+
+        // Autre profil, puis routage hors ligne devant le même serveur
+        assertNull(cache.get("|osrm:https://router.project-osrm.org/foot", ORIGIN, DESTINATION));
+        assertNull(cache.get("offline:1200:3400" + SOURCE, ORIGIN, DESTINATION));
+        assertNotNull(cache.get(SOURCE, ORIGIN, DESTINATION));
+    }
+
+    @Test
+    public void hitsDoNotExtendValidity() throws InterruptedException {
+        long ttl = 600;
+        RouteCache cache = new RouteCache(directory, RouteCache.DEFAULT_GRID_METERS, 1 << 20, ttl);
+        long written = System.currentTimeMillis();
+        cache.put(SOURCE, ORIGIN, DESTINATION, route());
+
+        // Lectures répétées pendant la durée de validité
+        int hits = 0;
+        while (true) {
+            DirectionsHelper.RouteInfo cached = cache.get(SOURCE, ORIGIN, DESTINATION);
+            if (System.currentTimeMillis() - written >= ttl) {
+                break;
+            }
+            assertNotNull(cached);
+            hits++;
+            Thread.sleep(50);
+        }
+        assertTrue(hits > 0);
+
+        Thread.sleep(50);
+        assertNull("Entrée lue souvent mais écrite il y a plus que la durée de validité",
+                cache.get(SOURCE, ORIGIN, DESTINATION));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedBeyondMaxBytes() {
+        LatLng otherDestination = new LatLng(48.87, 2.30);
+        LatLng thirdDestination = new LatLng(48.88, 2.31);
+        RouteCache probe = new RouteCache(directory);
+        probe.put(SOURCE, ORIGIN, DESTINATION, route());
+        long entryBytes = directory.listFiles()[0].length();
+        probe.clear();
+
+        // Place pour deux entrées
+        RouteCache cache = new RouteCache(directory, RouteCache.DEFAULT_GRID_METERS,
+                entryBytes * 2, Long.MAX_VALUE / 2);
+        cache.put(SOURCE, ORIGIN, DESTINATION, route());
+        cache.put(SOURCE, ORIGIN, otherDestination, route());
+        File[] files = directory.listFiles();
+        long old = System.currentTimeMillis() - 60_000;
+        for (File file : files) {
+            file.setLastModified(old);
+        }
+        // Lecture : la première entrée devient la plus récemment utilisée
+        assertNotNull(cache.get(SOURCE, ORIGIN, DESTINATION));
+
+        cache.put(SOURCE, ORIGIN, thirdDestination, route());
+
+        assertNotNull(cache.get(SOURCE, ORIGIN, DESTINATION));
+        assertNull(cache.get(SOURCE, ORIGIN, otherDestination));
+        assertNotNull(cache.get(SOURCE, ORIGIN, thirdDestination));
+    }
+
+    /**
+     * Route de 3 points, distances fournies (android.location indisponible en test JVM)
+     */
+    private static DirectionsHelper.RouteInfo route() {
+        DirectionsHelper.RouteInfo route = new DirectionsHelper.RouteInfo();
+        route.setGeometry(new RouteGeometry(
+                new double[]{48.856614, 48.857500, 48.858370},
+                new double[]{2.352222, 2.320000, 2.294481}, 3));
+        route.setDistanceTable(new RouteDistanceTable(new double[]{0, 2400, 4300}));
+        route.distance = "1 km";
+        route.steps.add("Tout droit");
+        return route;
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.tp7.routing;
+
+import com.example.tp7.DirectionsHelper;
+import com.example.tp7.route.RouteDistanceTable;
+import com.example.tp7.route.RouteGeometry;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Format binaire des routes : aller-retour encode/decode et rejet des données corrompues
+ * Les distances cumulées sont toujours fournies, pour ne pas dépendre de android.location
+ */
+public class RouteCodecTest {
+
+    @Test
+    public void roundTripKeepsSummaryAndSteps() throws IOException {
+        DirectionsHelper.RouteInfo route = route(
+                new double[]{48.856614, 48.857001, 48.858370},
+                new double[]{2.352222, 2.353100, 2.294481},
+                new double[]{0, 75.31, 4310.07});
+        route.distance = "4,3 km";
+        route.duration = "12 min";
+        route.distanceMeters = 4310.07;
+        route.durationSeconds = 725.5;
+        route.steps.addAll(Arrays.asList("Tout droit sur la rue de Rivoli", "Arrivée à destination"));
+        route.stepStartIndices = new int[]{0, 2};
+
+        DirectionsHelper.RouteInfo decoded = roundTrip(route);
+
+        assertEquals("4,3 km", decoded.distance);
+        assertEquals("12 min", decoded.duration);
+        assertEquals(4310.07, decoded.distanceMeters, 0);
+        assertEquals(725.5, decoded.durationSeconds, 0);
+        assertEquals(route.steps, decoded.steps);
+        assertArrayEquals(new int[]{0, 2}, decoded.stepStartIndices);
+        assertSameGeometry(route, decoded);
+        assertArrayEquals(new double[]{0, 75.31, 4310.07},
+                decoded.getDistanceTable().getCumulativeDistances(), 0.005);
+    }
+
+    @Test
+    public void deltasCoverSignChangesAndLargeJumps() throws IOException {
+        // Écarts positifs puis négatifs, passage de l'équateur et de l'antiméridien
+        DirectionsHelper.RouteInfo route = route(
+                new double[]{0.000001, -0.000001, 0, -89.999999, 89.999999, -33.868820},
+                new double[]{-0.000001, 0.000001, 179.999999, -179.999999, 0, 151.209296},
+                new double[]{0, 0.2, 20_000_000, 30_000_000, 50_000_000, 60_000_000});
+
+        assertSameGeometry(route, roundTrip(route));
+    }
+
+    @Test
+    public void negativeCoordinatesRoundTrip() throws IOException {
+        DirectionsHelper.RouteInfo route = route(
+                new double[]{-22.906847, -22.907120, -22.910000},
+                new double[]{-43.172897, -43.171000, -43.180500},
+                new double[]{0, 195.4, 1020.8});
+
+        assertSameGeometry(route, roundTrip(route));
+    }
+
+    @Test
+    public void emptyRouteRoundTrip() throws IOException {
+        DirectionsHelper.RouteInfo decoded = roundTrip(new DirectionsHelper.RouteInfo());
+
+        assertEquals(0, decoded.geometry.size());
+        assertEquals(0, decoded.steps.size());
+        assertEquals("", decoded.distance);
+        assertEquals(0, decoded.getDistanceTable().size());
+    }
+
+    @Test
+    public void routeWithoutStepsRoundTrip() throws IOException {
+        DirectionsHelper.RouteInfo route = route(
+                new double[]{45.764043, 45.765000},
+                new double[]{4.835659, 4.836000},
+                new double[]{0, 109.2});
+
+        DirectionsHelper.RouteInfo decoded = roundTrip(route);
+
+        assertEquals(0, decoded.steps.size());
+        assertSameGeometry(route, decoded);
+    }
+
+    @Test
+    public void stepsWithoutStartIndicesRoundTrip() throws IOException {
+        DirectionsHelper.RouteInfo route = route(
+                new double[]{45.764043, 45.765000},
+                new double[]{4.835659, 4.836000},
+                new double[]{0, 109.2});
+        route.steps.add("Tournez à gauche");
+
+        DirectionsHelper.RouteInfo decoded = roundTrip(route);
+
+        assertEquals(route.steps, decoded.steps);
+        assertNull(decoded.stepStartIndices);
+    }
+
+    @Test
+    public void decodeAdvancesBufferToEndOfRoute() throws IOException {
+        byte[] first = RouteCodec.encode(route(new double[]{1, 2}, new double[]{3, 4}, new double[]{0, 10}));
+        byte[] second = RouteCodec.encode(new DirectionsHelper.RouteInfo());
+        ByteBuffer buffer = ByteBuffer.allocate(first.length + second.length);
+        buffer.put(first).put(second).flip();
+
+        assertEquals(2, RouteCodec.decode(buffer).geometry.size());
+        assertEquals(first.length, buffer.position());
+        assertEquals(0, RouteCodec.decode(buffer).geometry.size());
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsUnknownMagic() throws IOException {
+        byte[] data = RouteCodec.encode(new DirectionsHelper.RouteInfo());
+        data[0] = 'X';
+        RouteCodec.decode(data);
+    }
+
+    @Test
+    public void rejectsEveryTruncation() {
+        DirectionsHelper.RouteInfo route = route(
+                new double[]{48.8, 48.9, 49.0},
+                new double[]{2.3, 2.4, 2.5},
+                new double[]{0, 13_000, 26_000});
+        route.steps.add("Continuez");
+        route.stepStartIndices = new int[]{0};
+        byte[] data = RouteCodec.encode(route);
+
+        for (int length = 0; length < data.length; length++) {
+            try {
+                RouteCodec.decode(Arrays.copyOf(data, length));
+                fail("Route tronquée à " + length + " octets acceptée");
+            } catch (IOException expected) {
+                // Attendu
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsHugePointCount() throws IOException {
+        byte[] data = RouteCodec.encode(new DirectionsHelper.RouteInfo());
+        // En-tête (5) + 2 doubles (16) + 2 textes vides (2), puis le nombre de points
+        int countOffset = 23;
+        byte[] corrupted = Arrays.copyOf(data, data.length + 4);
+        corrupted[countOffset] = (byte) 0xff;
+        corrupted[countOffset + 1] = (byte) 0xff;
+        corrupted[countOffset + 2] = (byte) 0xff;
+        corrupted[countOffset + 3] = (byte) 0xff;
+        corrupted[countOffset + 4] = 0x07; // 2^31 - 1
+        RouteCodec.decode(corrupted);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsNegativeStringLength() throws IOException {
+        byte[] data = RouteCodec.encode(new DirectionsHelper.RouteInfo());
+        // En-tête (5) + 2 doubles (16), puis la longueur du premier texte :
+        // varint de 10 octets dont le dernier lève le bit de signe
+        int lengthOffset = 21;
+        byte[] corrupted = new byte[data.length + 9];
+        System.arraycopy(data, 0, corrupted, 0, lengthOffset);
+        for (int i = 0; i < 9; i++) {
+            corrupted[lengthOffset + i] = (byte) 0x80;
+        }
+        corrupted[lengthOffset + 9] = 0x01;
+        System.arraycopy(data, lengthOffset + 1, corrupted, lengthOffset + 10, data.length - lengthOffset - 1);
+        RouteCodec.decode(corrupted);
+    }
+
+    private static DirectionsHelper.RouteInfo route(double[] latitudes, double[] longitudes, double[] cumulative) {
+        DirectionsHelper.RouteInfo route = new DirectionsHelper.RouteInfo();
+        route.setGeometry(new RouteGeometry(latitudes, longitudes, latitudes.length));
+        route.setDistanceTable(new RouteDistanceTable(cumulative));
+        return route;
+    }
+
+    private static DirectionsHelper.RouteInfo roundTrip(DirectionsHelper.RouteInfo route) throws IOException {
+        return RouteCodec.decode(RouteCodec.encode(route));
+    }
+
+    // Coordonnées stockées en microdegrés
+    private static void assertSameGeometry(DirectionsHelper.RouteInfo expected, DirectionsHelper.RouteInfo actual) {
+        assertEquals(expected.geometry.size(), actual.geometry.size());
+        for (int i = 0; i < expected.geometry.size(); i++) {
+            assertEquals(expected.geometry.getLatitude(i), actual.geometry.getLatitude(i), 1e-6);
+            assertEquals(expected.geometry.getLongitude(i), actual.geometry.getLongitude(i), 1e-6);
+        }
+    }
+}
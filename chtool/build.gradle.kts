@@ -0,0 +1,46 @@
+// Outil JVM de préparation des données hors ligne (hors de l'APK)
+// Usage : ./gradlew :chtool:run --args="region.osm build/offline/region.rgn"
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+application {
+    mainClass.set("com.example.tp7.chtool.Main")
+    applicationDefaultJvmArgs = listOf("-Xmx4g")
+}
+
+// Tests : la hiérarchie et l'index d'adresses produits sont relus par le code de
+// l'application (ChRouter, ChGraph, RoadGraph, RegionFile, OfflineGeocoder), classes
+// Java pures compilées avec les tests (LatLng remplacée par une classe de test)
+sourceSets {
+    test {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "com/example/tp7/chtool/**",
+                "com/google/android/gms/maps/model/**",
+                "com/example/tp7/offline/ChGraph.java",
+                "com/example/tp7/offline/ChRouter.java",
+                "com/example/tp7/offline/NodeGrid.java",
+                "com/example/tp7/offline/NodeHeap.java",
+                "com/example/tp7/offline/OfflineGeocoder.java",
+                "com/example/tp7/offline/PathFinder.java",
+                "com/example/tp7/offline/RegionFile.java",
+                "com/example/tp7/offline/RoadGraph.java"
+            )
+        }
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
@@ -0,0 +1,320 @@
+package com.example.tp7.chtool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Index d'adresses hors ligne (section GEOC, lue par com.example.tp7.offline.OfflineGeocoder)
+ *
+ * Entrées : rues nommées (regroupées par nom et par zone d'environ 2 km) et lieux
+ * nommés (place, amenity, tourism, shop). Les clés sont les noms normalisés
+ * (minuscules, sans accents ni ponctuation) rangés dans un trie compressé (radix) :
+ * chaque nœud porte le fragment de clé qui le sépare de son parent, les entrées
+ * dont la clé s'y termine et les TOP_K meilleures entrées de son sous-arbre,
+ * ce qui répond à une recherche par préfixe sans parcourir le sous-arbre
+ *
+ * Format (little-endian) :
+ *   en-tête 32 octets : magic "GEO1", version, entrées, taille des noms, taille du trie,
+ *                       offset de la racine, TOP_K, réservé
+ *   int[n] latitudes (microdegrés), int[n] longitudes, int[n + 1] début des noms,
+ *   noms UTF-8 (complétés à un multiple de 4), trie
+ *
+ * Nœud du trie (écrit après ses enfants) : varint longueur + octets du fragment,
+ * varint nombre + ids exacts, varint nombre + ids du top, varint nombre d'enfants,
+ * puis pour chaque enfant : premier octet du fragment, varint offset du nœud
+ * Les deux listes d'ids sont rangées par importance et limitées à TOP_K : au-delà,
+ * les homonymes les moins importants d'une même clé ne sont pas indexés
+ */
+final class AddressIndexBuilder {
+
+    static final String SECTION = "GEOC";
+    static final int MAGIC = 0x314F4547; // "GEO1"
+    static final int VERSION = 1;
+    static final int TOP_K = 8;
+
+    // Taille des zones de regroupement des rues homonymes (microdegrés, ~2 km)
+    private static final int STREET_CELL = 20000;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Map<String, Integer> PLACE_WEIGHTS = new HashMap<>();
+
+    static {
+        PLACE_WEIGHTS.put("city", 1000);
+        PLACE_WEIGHTS.put("town", 600);
+        PLACE_WEIGHTS.put("village", 300);
+        PLACE_WEIGHTS.put("suburb", 250);
+        PLACE_WEIGHTS.put("quarter", 150);
+        PLACE_WEIGHTS.put("neighbourhood", 150);
+        PLACE_WEIGHTS.put("hamlet", 100);
+        PLACE_WEIGHTS.put("locality", 50);
+    }
+
+    private static final int POI_WEIGHT = 40;
+
+    private static final class Entry {
+        final String name;
+        final byte[] key;
+        int latitude;
+        int longitude;
+        int weight;
+
+        Entry(String name, byte[] key, int latitude, int longitude, int weight) {
+            this.name = name;
+            this.key = key;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Rue en cours d'agrégation : position du milieu de son plus long tronçon
+     */
+    private static final class Street {
+        final String name;
+        double totalLength;
+        double longestWay = -1;
+        int latitude;
+        int longitude;
+
+        Street(String name) {
+            this.name = name;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Street> streets = new HashMap<>();
+
+    /**
+     * Normalisation des clés ; doit rester identique à OfflineGeocoder.normalize()
+     */
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Lieu nommé (nœud OSM) ; ignoré si ni place, amenity, tourism ni shop
+     */
+    void addPlace(Map<String, String> tags, int latitude, int longitude) {
+        String name = tags.get("name");
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        Integer weight = null;
+        String place = tags.get("place");
+        if (place != null) {
+            weight = PLACE_WEIGHTS.get(place);
+        }
+        if (weight == null && (tags.containsKey("amenity") || tags.containsKey("tourism") ||
+                tags.containsKey("shop"))) {
+            weight = POI_WEIGHT;
+        }
+        if (weight != null) {
+            add(name, latitude, longitude, weight);
+        }
+    }
+
+    /**
+     * Tronçon d'une rue nommée
+     * @param length Longueur du tronçon (mètres)
+     */
+    void addStreet(String name, double length, int middleLatitude, int middleLongitude) {
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        String group = name + '\u0000' + Math.floorDiv(middleLatitude, STREET_CELL) + ':' +
+                Math.floorDiv(middleLongitude, STREET_CELL);
+        Street street = streets.computeIfAbsent(group, k -> new Street(name));
+        street.totalLength += length;
+        if (length > street.longestWay) {
+            street.longestWay = length;
+            street.latitude = middleLatitude;
+            street.longitude = middleLongitude;
+        }
+    }
+
+    private void add(String name, int latitude, int longitude, int weight) {
+        String key = normalize(name);
+        if (!key.isEmpty()) {
+            entries.add(new Entry(name, key.getBytes(StandardCharsets.UTF_8), latitude, longitude, weight));
+        }
+    }
+
+    int size() {
+        return entries.size() + streets.size();
+    }
+
+    /**
+     * Écrit la section GEOC
+     */
+    void write(SectionWriter writer) throws IOException {
+        for (Street street : streets.values()) {
+            add(street.name, street.latitude, street.longitude,
+                    20 + (int) Math.min(400, street.totalLength / 20));
+        }
+        streets.clear();
+
+        // Ordre des clés (octets non signés) : les ids des entrées sont leur rang
+        entries.sort((a, b) -> Arrays.compareUnsigned(a.key, b.key));
+        int count = entries.size();
+
+        ByteArrayOutputStream trie = new ByteArrayOutputStream();
+        int root = count > 0 ? buildNode(trie, 0, count, 0, 0).offset : -1;
+        if (root < 0) {
+            // Index vide : racine sans enfant
+            root = trie.size();
+            trie.write(0);
+            trie.write(0);
+            trie.write(0);
+            trie.write(0);
+        }
+
+        byte[][] names = new byte[count][];
+        int nameLength = 0;
+        for (int i = 0; i < count; i++) {
+            names[i] = entries.get(i).name.getBytes(StandardCharsets.UTF_8);
+            nameLength += names[i].length;
+        }
+        int padding = (4 - nameLength % 4) % 4;
+
+        writer.putInt(MAGIC);
+        writer.putInt(VERSION);
+        writer.putInt(count);
+        writer.putInt(nameLength + padding);
+        writer.putInt(trie.size());
+        writer.putInt(root);
+        writer.putInt(TOP_K);
+        writer.putInt(0);
+
+        for (Entry entry : entries) {
+            writer.putInt(entry.latitude);
+        }
+        for (Entry entry : entries) {
+            writer.putInt(entry.longitude);
+        }
+        int offset = 0;
+        for (byte[] name : names) {
+            writer.putInt(offset);
+            offset += name.length;
+        }
+        writer.putInt(offset);
+        for (byte[] name : names) {
+            writer.bytes(name);
+        }
+        writer.bytes(new byte[padding]);
+        writer.bytes(trie.toByteArray());
+    }
+
+    private static final class BuiltNode {
+        final int offset;
+        final int[] top;
+
+        BuiltNode(int offset, int[] top) {
+            this.offset = offset;
+            this.top = top;
+        }
+    }
+
+    /**
+     * Nœud pour les entrées [lo, hi), qui partagent leurs depth premiers octets ;
+     * son fragment est key[labelStart, depth) de ces entrées
+     */
+    private BuiltNode buildNode(ByteArrayOutputStream out, int lo, int hi, int labelStart, int depth) {
+        byte[] firstKey = entries.get(lo).key;
+
+        IntList exact = new IntList();
+        int i = lo;
+        while (i < hi && entries.get(i).key.length == depth) {
+            exact.add(i);
+            i++;
+        }
+
+        IntList candidates = new IntList();
+        for (int k = 0; k < exact.size(); k++) {
+            candidates.add(exact.get(k));
+        }
+        List<int[]> children = new ArrayList<>();
+        while (i < hi) {
+            byte first = entries.get(i).key[depth];
+            int j = i;
+            while (j < hi && entries.get(j).key[depth] == first) {
+                j++;
+            }
+            // Fragment le plus long commun au groupe (clés triées : premier et dernier suffisent)
+            byte[] a = entries.get(i).key;
+            byte[] b = entries.get(j - 1).key;
+            int end = depth + 1;
+            while (end < a.length && end < b.length && a[end] == b[end]) {
+                end++;
+            }
+            BuiltNode child = buildNode(out, i, j, depth, end);
+            children.add(new int[]{first & 0xFF, child.offset});
+            for (int id : child.top) {
+                candidates.add(id);
+            }
+            i = j;
+        }
+
+        int[] top = best(candidates);
+        int[] exactIds = best(exact);
+
+        int offset = out.size();
+        writeVarint(out, depth - labelStart);
+        out.write(firstKey, labelStart, depth - labelStart);
+        writeIds(out, exactIds);
+        writeIds(out, top);
+        writeVarint(out, children.size());
+        for (int[] child : children) {
+            out.write(child[0]);
+            writeVarint(out, child[1]);
+        }
+        return new BuiltNode(offset, top);
+    }
+
+    /**
+     * TOP_K entrées de plus fort poids (à poids égal, la clé la plus courte)
+     */
+    private int[] best(IntList ids) {
+        Integer[] sorted = new Integer[ids.size()];
+        for (int k = 0; k < sorted.length; k++) {
+            sorted[k] = ids.get(k);
+        }
+        Arrays.sort(sorted, Comparator.<Integer>comparingInt(id -> -entries.get(id).weight)
+                .thenComparingInt(id -> entries.get(id).key.length)
+                .thenComparingInt(id -> id));
+        int[] result = new int[Math.min(TOP_K, sorted.length)];
+        for (int k = 0; k < result.length; k++) {
+            result[k] = sorted[k];
+        }
+        return result;
+    }
+
+    private static void writeIds(ByteArrayOutputStream out, int[] ids) {
+        writeVarint(out, ids.length);
+        for (int id : ids) {
+            writeVarint(out, id);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.tp7.chtool;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Construction des contraction hierarchies sur un RoadNetwork trié (CSR)
+ *
+ * Les nœuds sont contractés un à un, du moins important au plus important
+ * (différence d'arcs + voisins déjà contractés, mise à jour paresseuse).
+ * Contracter v ajoute un raccourci u -> w pour chaque chemin u -> v -> w qui
+ * n'a pas de témoin plus court évitant v (recherche de Dijkstra bornée).
+ *
+ * Chaque arc de la hiérarchie est soit un arc d'origine (first = -1, second =
+ * index de l'arc dans le réseau), soit un raccourci (first, second = les deux
+ * arcs de la hiérarchie qu'il remplace) : le chemin se déroule récursivement.
+ */
+final class ContractionBuilder {
+
+    // Nœuds fixés au plus par recherche de témoin
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private final int nodeCount;
+
+    // Arcs de la hiérarchie
+    private final IntList source = new IntList(4096);
+    private final IntList target = new IntList(4096);
+    private final IntList weight = new IntList(4096);
+    private final IntList first = new IntList(4096);
+    private final IntList second = new IntList(4096);
+
+    // Arcs sortants / entrants de chaque nœud (les arcs vers des nœuds contractés sont ignorés)
+    private final IntList[] outEdges;
+    private final IntList[] inEdges;
+
+    private final boolean[] contracted;
+    private final int[] contractedNeighbours;
+    private final int[] rank;
+
+    // Recherche de témoin : état par nœud, valide si visited[n] == searchId
+    private final int[] witnessDistance;
+    private final int[] visited;
+    private int searchId;
+    private final LongHeap witnessHeap = new LongHeap();
+
+    // Raccourcis en attente lors d'une contraction
+    private final IntList pendingFrom = new IntList();
+    private final IntList pendingTo = new IntList();
+    private final IntList pendingWeight = new IntList();
+    private final IntList pendingFirst = new IntList();
+    private final IntList pendingSecond = new IntList();
+
+    private int shortcutCount;
+
+    /**
+     * Hiérarchie terminée : listes montantes (arcs vers un nœud de rang supérieur)
+     * et descendantes (arcs venant d'un nœud de rang supérieur), au format CSR
+     */
+    static final class Hierarchy {
+        int nodeCount;
+        int[] rank;
+        int[] firstUp;
+        int[] upNode;
+        int[] upEdge;
+        int[] firstDown;
+        int[] downNode;
+        int[] downEdge;
+        int[] edgeWeight;
+        int[] edgeFirst;
+        int[] edgeSecond;
+    }
+
+    ContractionBuilder(RoadNetwork network) {
+        nodeCount = network.nodeCount();
+        outEdges = new IntList[nodeCount];
+        inEdges = new IntList[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            outEdges[i] = new IntList(4);
+            inEdges[i] = new IntList(4);
+        }
+        contracted = new boolean[nodeCount];
+        contractedNeighbours = new int[nodeCount];
+        rank = new int[nodeCount];
+        witnessDistance = new int[nodeCount];
+        visited = new int[nodeCount];
+
+        // Arcs d'origine : boucles retirées, arcs parallèles réduits au plus rapide
+        Map<Long, Integer> existing = new HashMap<>();
+        for (int e = 0; e < network.edgeCount(); e++) {
+            int from = network.edgeSource.get(e);
+            int to = network.edgeTarget.get(e);
+            if (from == to) {
+                continue;
+            }
+            int time = network.edgeTime.get(e);
+            long key = (long) from * nodeCount + to;
+            Integer known = existing.get(key);
+            if (known == null) {
+                existing.put(key, addEdge(from, to, time, -1, e));
+            } else if (time < weight.get(known)) {
+                weight.set(known, time);
+                second.set(known, e);
+            }
+        }
+    }
+
+    private int addEdge(int from, int to, int edgeWeight, int firstEdge, int secondEdge) {
+        int id = source.size();
+        source.add(from);
+        target.add(to);
+        weight.add(edgeWeight);
+        first.add(firstEdge);
+        second.add(secondEdge);
+        outEdges[from].add(id);
+        inEdges[to].add(id);
+        return id;
+    }
+
+    Hierarchy build() {
+        long start = System.currentTimeMillis();
+        LongHeap queue = new LongHeap();
+        for (int v = 0; v < nodeCount; v++) {
+            queue.push(LongHeap.key(priority(v), v));
+        }
+
+        int order = 0;
+        while (!queue.isEmpty()) {
+            int v = LongHeap.node(queue.pop());
+            // Priorité périmée : réévaluée, le nœud repasse dans la file si un autre est meilleur
+            int current = priority(v);
+            if (!queue.isEmpty() && current > LongHeap.priority(queue.peek())) {
+                queue.push(LongHeap.key(current, v));
+                continue;
+            }
+
+            contract(v);
+            rank[v] = order++;
+            if (order % 100000 == 0) {
+                System.out.println("CH: " + order + "/" + nodeCount + " nœuds contractés");
+            }
+        }
+
+        System.out.println("CH: " + shortcutCount + " raccourcis en " +
+                (System.currentTimeMillis() - start) + " ms");
+        return toHierarchy();
+    }
+
+    /**
+     * Différence d'arcs (raccourcis créés - arcs retirés) + voisins contractés
+     */
+    private int priority(int v) {
+        int shortcuts = findShortcuts(v);
+        int removed = 0;
+        IntList in = inEdges[v];
+        for (int i = 0; i < in.size(); i++) {
+            if (!contracted[source.get(in.get(i))]) {
+                removed++;
+            }
+        }
+        IntList out = outEdges[v];
+        for (int i = 0; i < out.size(); i++) {
+            if (!contracted[target.get(out.get(i))]) {
+                removed++;
+            }
+        }
+        return shortcuts - removed + contractedNeighbours[v];
+    }
+
+    private void contract(int v) {
+        findShortcuts(v);
+        for (int i = 0; i < pendingFrom.size(); i++) {
+            addEdge(pendingFrom.get(i), pendingTo.get(i), pendingWeight.get(i),
+                    pendingFirst.get(i), pendingSecond.get(i));
+        }
+        shortcutCount += pendingFrom.size();
+        contracted[v] = true;
+
+        IntList in = inEdges[v];
+        for (int i = 0; i < in.size(); i++) {
+            contractedNeighbours[source.get(in.get(i))]++;
+        }
+        IntList out = outEdges[v];
+        for (int i = 0; i < out.size(); i++) {
+            contractedNeighbours[target.get(out.get(i))]++;
+        }
+    }
+
+    /**
+     * Remplit pending* avec les raccourcis nécessaires à la contraction de v
+     * @return Nombre de raccourcis
+     */
+    private int findShortcuts(int v) {
+        pendingFrom.clear();
+        pendingTo.clear();
+        pendingWeight.clear();
+        pendingFirst.clear();
+        pendingSecond.clear();
+
+        IntList in = inEdges[v];
+        IntList out = outEdges[v];
+        for (int i = 0; i < in.size(); i++) {
+            int inEdge = in.get(i);
+            int u = source.get(inEdge);
+            if (contracted[u]) {
+                continue;
+            }
+            int inWeight = weight.get(inEdge);
+
+            int maxVia = 0;
+            for (int j = 0; j < out.size(); j++) {
+                int w = target.get(out.get(j));
+                if (!contracted[w] && w != u) {
+                    maxVia = Math.max(maxVia, inWeight + weight.get(out.get(j)));
+                }
+            }
+            if (maxVia == 0) {
+                continue;
+            }
+
+            witnessSearch(u, v, maxVia);
+            for (int j = 0; j < out.size(); j++) {
+                int outEdge = out.get(j);
+                int w = target.get(outEdge);
+                if (contracted[w] || w == u) {
+                    continue;
+                }
+                int via = inWeight + weight.get(outEdge);
+                if (visited[w] == searchId && witnessDistance[w] <= via) {
+                    continue;
+                }
+                pendingFrom.add(u);
+                pendingTo.add(w);
+                pendingWeight.add(via);
+                pendingFirst.add(inEdge);
+                pendingSecond.add(outEdge);
+            }
+        }
+        return pendingFrom.size();
+    }
+
+    /**
+     * Dijkstra depuis u sans passer par excluded, arrêté au-delà de maxDistance
+     * ou après WITNESS_SETTLE_LIMIT nœuds fixés
+     */
+    private void witnessSearch(int u, int excluded, int maxDistance) {
+        searchId++;
+        witnessHeap.clear();
+        visited[u] = searchId;
+        witnessDistance[u] = 0;
+        witnessHeap.push(LongHeap.key(0, u));
+
+        int settled = 0;
+        while (!witnessHeap.isEmpty()) {
+            long top = witnessHeap.pop();
+            int node = LongHeap.node(top);
+            int distance = LongHeap.priority(top);
+            if (distance > witnessDistance[node]) {
+                continue;
+            }
+            if (distance > maxDistance || ++settled > WITNESS_SETTLE_LIMIT) {
+                return;
+            }
+
+            IntList out = outEdges[node];
+            for (int i = 0; i < out.size(); i++) {
+                int edge = out.get(i);
+                int next = target.get(edge);
+                if (next == excluded || contracted[next]) {
+                    continue;
+                }
+                int candidate = distance + weight.get(edge);
+                if (visited[next] != searchId || candidate < witnessDistance[next]) {
+                    visited[next] = searchId;
+                    witnessDistance[next] = candidate;
+                    witnessHeap.push(LongHeap.key(candidate, next));
+                }
+            }
+        }
+    }
+
+    private Hierarchy toHierarchy() {
+        int edgeCount = source.size();
+        Hierarchy h = new Hierarchy();
+        h.nodeCount = nodeCount;
+        h.rank = rank;
+        h.edgeWeight = weight.toArray();
+        h.edgeFirst = first.toArray();
+        h.edgeSecond = second.toArray();
+
+        h.firstUp = new int[nodeCount + 1];
+        h.firstDown = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            int s = source.get(e);
+            int t = target.get(e);
+            if (rank[t] > rank[s]) {
+                h.firstUp[s + 1]++;
+            } else {
+                h.firstDown[t + 1]++;
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            h.firstUp[i + 1] += h.firstUp[i];
+            h.firstDown[i + 1] += h.firstDown[i];
+        }
+
+        h.upNode = new int[h.firstUp[nodeCount]];
+        h.upEdge = new int[h.upNode.length];
+        h.downNode = new int[h.firstDown[nodeCount]];
+        h.downEdge = new int[h.downNode.length];
+        int[] upFill = new int[nodeCount];
+        int[] downFill = new int[nodeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            int s = source.get(e);
+            int t = target.get(e);
+            if (rank[t] > rank[s]) {
+                int position = h.firstUp[s] + upFill[s]++;
+                h.upNode[position] = t;
+                h.upEdge[position] = e;
+            } else {
+                int position = h.firstDown[t] + downFill[t]++;
+                h.downNode[position] = s;
+                h.downEdge[position] = e;
+            }
+        }
+        return h;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.tp7.chtool;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Contenu des sections de routage d'un fichier de région (little-endian, tableaux d'int bruts)
+ * Les formats doivent rester identiques à ceux de com.example.tp7.offline.RoadGraph
+ * et com.example.tp7.offline.ChGraph
+ */
+final class GraphFileWriter {
+
+    static final String GRAPH_SECTION = "GRPH";
+    static final String HIERARCHY_SECTION = "CHIE";
+
+    static final int GRAPH_MAGIC = 0x31524752; // "RGR1"
+    static final int GRAPH_VERSION = 1;
+    static final int HIERARCHY_MAGIC = 0x31484352; // "RCH1"
+    static final int HIERARCHY_VERSION = 1;
+
+    private GraphFileWriter() {}
+
+    /**
+     * Graphe routier (format RGR1)
+     */
+    static void writeGraph(RoadNetwork network, SectionWriter writer) throws IOException {
+        byte[][] names = new byte[network.names.size()][];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = network.names.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+
+        header(writer, GRAPH_MAGIC, GRAPH_VERSION, network.nodeCount(), network.edgeCount(),
+                names.length, Float.floatToIntBits(network.maxSpeed));
+        writer.ints(network.latitudes.toArray());
+        writer.ints(network.longitudes.toArray());
+        writer.ints(network.firstEdge);
+        writer.ints(network.edgeTarget.toArray());
+        writer.ints(network.edgeLength.toArray());
+        writer.ints(network.edgeTime.toArray());
+        writer.ints(network.edgeName.toArray());
+
+        int offset = 0;
+        for (byte[] name : names) {
+            writer.putInt(offset);
+            offset += name.length;
+        }
+        writer.putInt(offset);
+        for (byte[] name : names) {
+            writer.bytes(name);
+        }
+    }
+
+    /**
+     * Contraction hierarchies (format RCH1), mêmes numéros de nœuds et d'arcs que le graphe
+     */
+    static void writeHierarchy(ContractionBuilder.Hierarchy h, SectionWriter writer) throws IOException {
+        header(writer, HIERARCHY_MAGIC, HIERARCHY_VERSION, h.nodeCount, h.edgeWeight.length,
+                h.upNode.length, h.downNode.length);
+        writer.ints(h.firstUp);
+        writer.ints(h.upNode);
+        writer.ints(h.upEdge);
+        writer.ints(h.firstDown);
+        writer.ints(h.downNode);
+        writer.ints(h.downEdge);
+        writer.ints(h.edgeWeight);
+        writer.ints(h.edgeFirst);
+        writer.ints(h.edgeSecond);
+    }
+
+    /**
+     * En-tête de 32 octets : magic, version, quatre compteurs, réservé
+     */
+    private static void header(SectionWriter writer, int magic, int version,
+                               int a, int b, int c, int d) throws IOException {
+        writer.putInt(magic);
+        writer.putInt(version);
+        writer.putInt(a);
+        writer.putInt(b);
+        writer.putInt(c);
+        writer.putInt(d);
+        writer.putInt(0);
+        writer.putInt(0);
+    }
+}
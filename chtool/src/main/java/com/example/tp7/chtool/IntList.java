@@ -0,0 +1,56 @@
+package com.example.tp7.chtool;
+
+import java.util.Arrays;
+
+/**
+ * Liste d'entiers extensible, sans boxing
+ */
+final class IntList {
+
+    private int[] data;
+    private int size;
+
+    IntList() {
+        this(16);
+    }
+
+    IntList(int capacity) {
+        data = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Liste de size zéros, à remplir par set()
+     */
+    static IntList zeros(int size) {
+        IntList list = new IntList(size);
+        list.size = size;
+        return list;
+    }
+
+    void add(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, size * 2);
+        }
+        data[size++] = value;
+    }
+
+    int get(int index) {
+        return data[index];
+    }
+
+    void set(int index, int value) {
+        data[index] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.tp7.chtool;
+
+import java.util.Arrays;
+
+/**
+ * Tas binaire (min) de longs ; les clés combinent priorité (32 bits de poids fort)
+ * et nœud (32 bits de poids faible) : voir key()
+ */
+final class LongHeap {
+
+    private long[] data = new long[64];
+    private int size;
+
+    static long key(int priority, int node) {
+        return ((long) priority << 32) | (node & 0xFFFFFFFFL);
+    }
+
+    static int priority(long key) {
+        return (int) (key >> 32);
+    }
+
+    static int node(long key) {
+        return (int) key;
+    }
+
+    void push(long value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (data[parent] <= value) {
+                break;
+            }
+            data[i] = data[parent];
+            i = parent;
+        }
+        data[i] = value;
+    }
+
+    long peek() {
+        return data[0];
+    }
+
+    long pop() {
+        long top = data[0];
+        long last = data[--size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && data[child + 1] < data[child]) {
+                child++;
+            }
+            if (last <= data[child]) {
+                break;
+            }
+            data[i] = data[child];
+            i = child;
+        }
+        data[i] = last;
+        return top;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
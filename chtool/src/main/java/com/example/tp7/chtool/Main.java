@@ -0,0 +1,66 @@
+package com.example.tp7.chtool;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Prépare le fichier de région hors ligne à partir d'un extrait OSM, avec les sections :
+ *   GRPH : graphe routier (RoadGraph)
+ *   CHIE : contraction hierarchies (ChGraph)
+ *   GEOC : index d'adresses pour la recherche par préfixe (OfflineGeocoder)
+ * Le fichier est à copier dans filesDir/offline/region.rgn de l'application
+ *
+ * Usage : chtool <extrait.osm> <region.rgn>
+ */
+public final class Main {
+
+    private Main() {}
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: chtool <extrait.osm> <region.rgn>");
+            System.exit(2);
+        }
+        try {
+            run(new File(args[0]), new File(args[1]));
+        } catch (IOException e) {
+            System.err.println("Erreur: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static void run(File osmFile, File output) throws IOException {
+        long start = System.currentTimeMillis();
+
+        AddressIndexBuilder addresses = new AddressIndexBuilder();
+        RoadNetwork network;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(osmFile), 1 << 16)) {
+            network = OsmReader.read(in, addresses);
+        }
+        if (network.nodeCount() == 0) {
+            throw new IOException("Aucune voie routable dans " + osmFile);
+        }
+        network.sortBySource();
+        ContractionBuilder.Hierarchy hierarchy = new ContractionBuilder(network).build();
+
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Impossible de créer " + parent);
+        }
+        try (RegionFileWriter region = new RegionFileWriter(output, 3)) {
+            GraphFileWriter.writeGraph(network, region.beginSection(GraphFileWriter.GRAPH_SECTION));
+            region.endSection();
+            GraphFileWriter.writeHierarchy(hierarchy, region.beginSection(GraphFileWriter.HIERARCHY_SECTION));
+            region.endSection();
+            addresses.write(region.beginSection(AddressIndexBuilder.SECTION));
+            region.endSection();
+        }
+
+        System.out.println("Adresses: " + addresses.size() + " entrées");
+        System.out.println("Écrit " + output + " (" + output.length() + " octets) en " +
+                (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.tp7.chtool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Lecture d'un extrait OpenStreetMap (.osm XML) en flux (StAX) : seules les
+ * voies carrossables (tag highway) et les nœuds qu'elles utilisent sont gardés
+ * Les rues et lieux nommés alimentent l'index d'adresses, s'il est fourni
+ */
+final class OsmReader {
+
+    // Vitesses par défaut (km/h) selon le type de voie
+    private static final Map<String, Integer> DEFAULT_SPEEDS = new HashMap<>();
+
+    static {
+        DEFAULT_SPEEDS.put("motorway", 110);
+        DEFAULT_SPEEDS.put("motorway_link", 60);
+        DEFAULT_SPEEDS.put("trunk", 90);
+        DEFAULT_SPEEDS.put("trunk_link", 50);
+        DEFAULT_SPEEDS.put("primary", 70);
+        DEFAULT_SPEEDS.put("primary_link", 40);
+        DEFAULT_SPEEDS.put("secondary", 60);
+        DEFAULT_SPEEDS.put("secondary_link", 40);
+        DEFAULT_SPEEDS.put("tertiary", 50);
+        DEFAULT_SPEEDS.put("tertiary_link", 30);
+        DEFAULT_SPEEDS.put("unclassified", 40);
+        DEFAULT_SPEEDS.put("residential", 30);
+        DEFAULT_SPEEDS.put("living_street", 10);
+        DEFAULT_SPEEDS.put("service", 15);
+    }
+
+    // Nœuds OSM : identifiant -> index dans osmLatitudes / osmLongitudes
+    private final Map<Long, Integer> osmNodes = new HashMap<>();
+    private final IntList osmLatitudes = new IntList(1 << 16);
+    private final IntList osmLongitudes = new IntList(1 << 16);
+    // Index OSM -> nœud du réseau (-1 tant qu'aucune voie ne l'utilise)
+    private final IntList graphNodes = new IntList(1 << 16);
+
+    private final RoadNetwork network = new RoadNetwork();
+    private final AddressIndexBuilder addresses;
+
+    // Élément (nœud ou voie) en cours de lecture
+    private final IntList wayNodes = new IntList();
+    private final Map<String, String> tags = new HashMap<>();
+
+    private int skippedWays;
+
+    private OsmReader(AddressIndexBuilder addresses) {
+        this.addresses = addresses;
+    }
+
+    /**
+     * @param addresses Index d'adresses à alimenter (null : ignoré)
+     */
+    static RoadNetwork read(InputStream in, AddressIndexBuilder addresses) throws IOException {
+        OsmReader reader = new OsmReader(addresses);
+        try {
+            reader.parse(in);
+        } catch (XMLStreamException e) {
+            throw new IOException("Fichier OSM invalide: " + e.getMessage(), e);
+        }
+        System.out.println("OSM: " + reader.osmLatitudes.size() + " nœuds lus, " +
+                reader.network.nodeCount() + " nœuds routables, " +
+                reader.network.edgeCount() + " arcs, " + reader.skippedWays + " voies ignorées");
+        return reader.network;
+    }
+
+    private void parse(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XMLStreamReader xml = factory.createXMLStreamReader(in);
+        boolean inWay = false;
+        boolean inNode = false;
+        try {
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (xml.getLocalName()) {
+                        case "node":
+                            inNode = true;
+                            tags.clear();
+                            readNode(xml);
+                            break;
+                        case "way":
+                            inWay = true;
+                            wayNodes.clear();
+                            tags.clear();
+                            break;
+                        case "nd":
+                            if (inWay) {
+                                Integer index = osmNodes.get(Long.parseLong(xml.getAttributeValue(null, "ref")));
+                                // Nœud absent de l'extrait (voie coupée en bordure) : -1
+                                wayNodes.add(index != null ? index : -1);
+                            }
+                            break;
+                        case "tag":
+                            if (inWay || inNode) {
+                                tags.put(xml.getAttributeValue(null, "k"), xml.getAttributeValue(null, "v"));
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if ("way".equals(xml.getLocalName())) {
+                        inWay = false;
+                        addWay();
+                    } else if ("node".equals(xml.getLocalName())) {
+                        inNode = false;
+                        if (addresses != null && !tags.isEmpty()) {
+                            int last = osmLatitudes.size() - 1;
+                            addresses.addPlace(tags, osmLatitudes.get(last), osmLongitudes.get(last));
+                        }
+                    }
+                }
+            }
+        } finally {
+            xml.close();
+        }
+    }
+
+    private void readNode(XMLStreamReader xml) {
+        long id = Long.parseLong(xml.getAttributeValue(null, "id"));
+        double lat = Double.parseDouble(xml.getAttributeValue(null, "lat"));
+        double lon = Double.parseDouble(xml.getAttributeValue(null, "lon"));
+        osmNodes.put(id, osmLatitudes.size());
+        osmLatitudes.add((int) Math.round(lat * 1e6));
+        osmLongitudes.add((int) Math.round(lon * 1e6));
+        graphNodes.add(-1);
+    }
+
+    private void addWay() {
+        String highway = tags.get("highway");
+        Integer defaultSpeed = highway != null ? DEFAULT_SPEEDS.get(highway) : null;
+        String access = tags.get("access");
+        if (defaultSpeed == null || "no".equals(access) || "private".equals(access)) {
+            skippedWays++;
+            return;
+        }
+
+        double speed = parseMaxSpeed(tags.get("maxspeed"), defaultSpeed) / 3.6;
+        int name = network.nameIndex(tags.get("name"));
+
+        String oneway = tags.get("oneway");
+        boolean forward = true;
+        boolean backward = true;
+        if ("-1".equals(oneway)) {
+            forward = false;
+        } else if ("yes".equals(oneway) || "1".equals(oneway) || "true".equals(oneway) ||
+                "roundabout".equals(tags.get("junction")) ||
+                (oneway == null && highway.startsWith("motorway"))) {
+            backward = false;
+        }
+
+        double wayLength = 0;
+        int middle = -1;
+        for (int i = 1; i < wayNodes.size(); i++) {
+            int a = wayNodes.get(i - 1);
+            int b = wayNodes.get(i);
+            if (a < 0 || b < 0 || a == b) {
+                continue;
+            }
+            double length = RoadNetwork.distance(
+                    osmLatitudes.get(a) / 1e6, osmLongitudes.get(a) / 1e6,
+                    osmLatitudes.get(b) / 1e6, osmLongitudes.get(b) / 1e6);
+            wayLength += length;
+            if (middle < 0 || i <= wayNodes.size() / 2) {
+                middle = b;
+            }
+            int from = graphNode(a);
+            int to = graphNode(b);
+            if (forward) {
+                network.addEdge(from, to, length, speed, name);
+            }
+            if (backward) {
+                network.addEdge(to, from, length, speed, name);
+            }
+        }
+
+        if (addresses != null && middle >= 0) {
+            addresses.addStreet(tags.get("name"), wayLength,
+                    osmLatitudes.get(middle), osmLongitudes.get(middle));
+        }
+    }
+
+    private int graphNode(int osmIndex) {
+        int node = graphNodes.get(osmIndex);
+        if (node < 0) {
+            node = network.addNode(osmLatitudes.get(osmIndex), osmLongitudes.get(osmIndex));
+            graphNodes.set(osmIndex, node);
+        }
+        return node;
+    }
+
+    /**
+     * Valeur du tag maxspeed en km/h ("50", "30 mph"), sinon la valeur par défaut
+     */
+    static int parseMaxSpeed(String value, int defaultSpeed) {
+        if (value == null) {
+            return defaultSpeed;
+        }
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        boolean mph = text.endsWith("mph");
+        if (mph) {
+            text = text.substring(0, text.length() - 3).trim();
+        }
+        try {
+            int speed = Integer.parseInt(text);
+            if (speed <= 0) {
+                return defaultSpeed;
+            }
+            return mph ? (int) Math.round(speed * 1.609) : speed;
+        } catch (NumberFormatException e) {
+            // "walk", "FR:urban"... : valeur par défaut du type de voie
+            return defaultSpeed;
+        }
+    }
+}
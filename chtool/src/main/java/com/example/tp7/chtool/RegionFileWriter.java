@@ -0,0 +1,105 @@
+package com.example.tp7.chtool;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Écriture d'un fichier de région (format lu par com.example.tp7.offline.RegionFile) :
+ * en-tête, table des sections, puis sections alignées sur 4096 octets
+ *
+ *   try (RegionFileWriter region = new RegionFileWriter(file, 2)) {
+ *       GraphFileWriter.writeGraph(network, region.beginSection("GRPH"));
+ *       region.endSection();
+ *       ...
+ *   }
+ */
+final class RegionFileWriter implements Closeable {
+
+    static final int MAGIC = 0x52375054; // "TP7R"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int ENTRY_SIZE = 24;
+    static final int PAGE_SIZE = 4096;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int maxSections;
+
+    private final List<String> tags = new ArrayList<>();
+    private final List<long[]> extents = new ArrayList<>();
+    private SectionWriter current;
+    private long currentStart;
+
+    /**
+     * @param maxSections Place réservée dans la table des sections
+     */
+    RegionFileWriter(File output, int maxSections) throws IOException {
+        this.file = new RandomAccessFile(output, "rw");
+        this.file.setLength(0);
+        this.channel = file.getChannel();
+        this.maxSections = maxSections;
+        channel.position(align(HEADER_SIZE + (long) maxSections * ENTRY_SIZE));
+    }
+
+    SectionWriter beginSection(String tag) throws IOException {
+        if (current != null) {
+            throw new IllegalStateException("Section " + tags.get(tags.size() - 1) + " non terminée");
+        }
+        if (tags.size() == maxSections || tag.getBytes(StandardCharsets.US_ASCII).length != 4) {
+            throw new IllegalArgumentException("Section refusée: " + tag);
+        }
+        tags.add(tag);
+        currentStart = channel.position();
+        current = new SectionWriter(channel);
+        return current;
+    }
+
+    void endSection() throws IOException {
+        current.flush();
+        long end = channel.position();
+        extents.add(new long[]{currentStart, end - currentStart});
+        channel.position(align(end));
+        current = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (current != null) {
+                throw new IllegalStateException("Section non terminée");
+            }
+            // Longueur finale : dernière section complétée jusqu'à la page suivante
+            long length = channel.position();
+            file.setLength(length);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + tags.size() * ENTRY_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(tags.size()).putInt(PAGE_SIZE)
+                    .putLong(length).putLong(0);
+            for (int i = 0; i < tags.size(); i++) {
+                header.put(tags.get(i).getBytes(StandardCharsets.US_ASCII)).putInt(0)
+                        .putLong(extents.get(i)[0]).putLong(extents.get(i)[1]);
+            }
+            header.flip();
+            channel.position(0);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(false);
+        } finally {
+            file.close();
+        }
+    }
+
+    private static long align(long position) {
+        return (position + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.tp7.chtool;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réseau routier en cours de construction : nœuds (microdegrés), arcs orientés
+ * (longueur en décimètres, durée en dixièmes de seconde) et table des noms
+ * Après sortBySource(), les arcs sont rangés par nœud source (adjacence CSR),
+ * dans l'ordre attendu par RoadGraph côté application
+ */
+final class RoadNetwork {
+
+    final IntList latitudes = new IntList(1024);
+    final IntList longitudes = new IntList(1024);
+
+    IntList edgeSource = new IntList(4096);
+    IntList edgeTarget = new IntList(4096);
+    IntList edgeLength = new IntList(4096);
+    IntList edgeTime = new IntList(4096);
+    IntList edgeName = new IntList(4096);
+
+    final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIndex = new HashMap<>();
+
+    // Vitesse maximale des arcs (m/s), utilisée par l'heuristique A*
+    float maxSpeed;
+
+    // Premier arc de chaque nœud, rempli par sortBySource()
+    int[] firstEdge;
+
+    int addNode(int latitudeE6, int longitudeE6) {
+        latitudes.add(latitudeE6);
+        longitudes.add(longitudeE6);
+        return latitudes.size() - 1;
+    }
+
+    int nodeCount() {
+        return latitudes.size();
+    }
+
+    int edgeCount() {
+        return edgeSource.size();
+    }
+
+    /**
+     * Index d'un nom dans la table (-1 si vide)
+     */
+    int nameIndex(String name) {
+        if (name == null || name.isEmpty()) {
+            return -1;
+        }
+        Integer index = nameIndex.get(name);
+        if (index == null) {
+            index = names.size();
+            names.add(name);
+            nameIndex.put(name, index);
+        }
+        return index;
+    }
+
+    /**
+     * @param length Longueur (mètres)
+     * @param speed Vitesse (m/s)
+     */
+    void addEdge(int from, int to, double length, double speed, int name) {
+        edgeSource.add(from);
+        edgeTarget.add(to);
+        edgeLength.add((int) Math.round(length * 10));
+        edgeTime.add(Math.max(1, (int) Math.round(length / speed * 10)));
+        edgeName.add(name);
+        if (speed > maxSpeed) {
+            maxSpeed = (float) speed;
+        }
+    }
+
+    /**
+     * Range les arcs par nœud source (tri par comptage, stable)
+     */
+    void sortBySource() {
+        int n = nodeCount();
+        int m = edgeCount();
+        firstEdge = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            firstEdge[edgeSource.get(e) + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            firstEdge[i + 1] += firstEdge[i];
+        }
+
+        int[] fill = new int[n];
+        IntList source = IntList.zeros(m);
+        IntList target = IntList.zeros(m);
+        IntList length = IntList.zeros(m);
+        IntList time = IntList.zeros(m);
+        IntList name = IntList.zeros(m);
+        for (int e = 0; e < m; e++) {
+            int from = edgeSource.get(e);
+            int position = firstEdge[from] + fill[from]++;
+            source.set(position, from);
+            target.set(position, edgeTarget.get(e));
+            length.set(position, edgeLength.get(e));
+            time.set(position, edgeTime.get(e));
+            name.set(position, edgeName.get(e));
+        }
+        edgeSource = source;
+        edgeTarget = target;
+        edgeLength = length;
+        edgeTime = time;
+        edgeName = name;
+    }
+
+    /**
+     * Distance (mètres) par la formule de haversine
+     */
+    static double distance(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 6371000 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
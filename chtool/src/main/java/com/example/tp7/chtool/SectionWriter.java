@@ -0,0 +1,57 @@
+package com.example.tp7.chtool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Écriture bufferisée (little-endian) du contenu d'une section à la position
+ * courante d'un canal
+ */
+final class SectionWriter {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+    SectionWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    void putInt(int value) throws IOException {
+        if (buffer.remaining() < 4) {
+            drain();
+        }
+        buffer.putInt(value);
+    }
+
+    void ints(int[] values) throws IOException {
+        for (int value : values) {
+            putInt(value);
+        }
+    }
+
+    void bytes(byte[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int count = Math.min(buffer.remaining(), values.length - offset);
+            buffer.put(values, offset, count);
+            offset += count;
+        }
+    }
+
+    void flush() throws IOException {
+        drain();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.tp7.chtool;
+
+import com.example.tp7.offline.OfflineGeocoder;
+import com.example.tp7.offline.RegionFile;
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Index d'adresses de bout en bout : AddressIndexBuilder -> section GEOC d'un fichier
+ * de région -> OfflineGeocoder. L'écriture et la lecture du trie (varints, offsets des
+ * enfants, listes du top) doivent rester compatibles octet pour octet
+ */
+public class AddressIndexTest {
+
+    @Test
+    public void exactNameIsFoundWhateverAccentsAndPunctuation() throws IOException {
+        AddressIndexBuilder builder = new AddressIndexBuilder();
+        builder.addPlace(place("city", "Saint-Étienne"), 45_433_600, 4_390_000);
+        builder.addPlace(place("town", "Saint-Étienne-du-Rouvray"), 49_377_000, 1_105_000);
+        OfflineGeocoder geocoder = build(builder);
+
+        for (String query : new String[]{"Saint-Étienne", "saint etienne", "SAINT  ÉTIENNE !", " saint-etienne"}) {
+            LatLng location = geocoder.geocode(query);
+            assertNotNull(query, location);
+            assertEquals(query, 45.4336, location.latitude, 1e-6);
+            assertEquals(query, 4.39, location.longitude, 1e-6);
+        }
+        assertEquals(49.377, geocoder.geocode("saint etienne du rouvray").latitude, 1e-6);
+    }
+
+    @Test
+    public void prefixIsNotAnExactMatch() throws IOException {
+        AddressIndexBuilder builder = new AddressIndexBuilder();
+        builder.addPlace(place("city", "Saint-Étienne"), 45_433_600, 4_390_000);
+        builder.addPlace(place("town", "Saint-Étienne-du-Rouvray"), 49_377_000, 1_105_000);
+        builder.addPlace(amenity("Sainte-Anne"), 48_828_000, 2_337_000);
+        OfflineGeocoder geocoder = build(builder);
+
+        // Au milieu d'un fragment, puis à la fin d'un nœud qui n'est la clé d'aucune entrée
+        assertNull(geocoder.geocode("sain"));
+        assertNull(geocoder.geocode("saint"));
+        assertNull(geocoder.geocode("saint etienne du"));
+        assertNull(geocoder.geocode("lyon"));
+
+        List<OfflineGeocoder.Suggestion> suggestions = geocoder.suggest("sain", 10);
+        assertEquals(3, suggestions.size());
+        assertEquals("Saint-Étienne", suggestions.get(0).name);
+        assertEquals("Saint-Étienne-du-Rouvray", suggestions.get(1).name);
+        assertEquals("Sainte-Anne", suggestions.get(2).name);
+
+        assertEquals(2, geocoder.suggest("Saint Étienne", 10).size());
+        assertEquals(1, geocoder.suggest("saint etienne", 1).size());
+        assertTrue(geocoder.suggest("saintes", 10).isEmpty());
+    }
+
+    @Test
+    public void homonymsAreRankedByWeight() throws IOException {
+        AddressIndexBuilder builder = new AddressIndexBuilder();
+        // Même nom, zones de regroupement différentes : longueurs totales 300, 5000 et 1200 m
+        builder.addStreet("Rue de la Gare", 300, 45_000_000, 4_000_000);
+        builder.addStreet("Rue de la Gare", 5000, 46_000_000, 5_000_000);
+        builder.addStreet("Rue de la Gare", 1200, 47_000_000, 6_000_000);
+        OfflineGeocoder geocoder = build(builder);
+
+        assertEquals(46.0, geocoder.geocode("rue de la gare").latitude, 1e-6);
+        List<OfflineGeocoder.Suggestion> suggestions = geocoder.suggest("rue de la gare", 10);
+        assertEquals(3, suggestions.size());
+        assertEquals(46.0, suggestions.get(0).location.latitude, 1e-6);
+        assertEquals(47.0, suggestions.get(1).location.latitude, 1e-6);
+        assertEquals(45.0, suggestions.get(2).location.latitude, 1e-6);
+    }
+
+    @Test
+    public void topEntriesPropagateToAncestors() throws IOException {
+        AddressIndexBuilder builder = new AddressIndexBuilder();
+        Map<String, Integer> expectedOrder = new HashMap<>();
+        // 12 rues de poids croissant : seules les TOP_K plus longues remontent
+        for (int i = 1; i <= 12; i++) {
+            builder.addStreet("Allée " + i, i * 400, 45_000_000 + i * 100_000, 4_000_000);
+            expectedOrder.put("Allée " + i, 12 - i);
+        }
+        builder.addPlace(place("village", "Albertville"), 45_675_000, 6_392_000);
+        OfflineGeocoder geocoder = build(builder);
+
+        List<OfflineGeocoder.Suggestion> suggestions = geocoder.suggest("all", 100);
+        assertEquals(AddressIndexBuilder.TOP_K, suggestions.size());
+        for (int i = 0; i < suggestions.size(); i++) {
+            assertEquals(i, (int) expectedOrder.get(suggestions.get(i).name));
+        }
+
+        // Racine : le village (poids 300) passe devant les rues
+        assertEquals("Albertville", geocoder.suggest("a", 1).get(0).name);
+        assertEquals(AddressIndexBuilder.TOP_K, geocoder.suggest("a", 100).size());
+
+        // Chaque rue reste accessible par son nom complet
+        for (int i = 1; i <= 12; i++) {
+            assertNotNull(geocoder.geocode("allee " + i));
+        }
+    }
+
+    @Test
+    public void emptyIndexFindsNothing() throws IOException {
+        OfflineGeocoder geocoder = build(new AddressIndexBuilder());
+
+        assertEquals(0, geocoder.size());
+        assertNull(geocoder.geocode("Paris"));
+        assertTrue(geocoder.suggest("p", 10).isEmpty());
+    }
+
+    @Test
+    public void normalizationMatchesReader() {
+        String[] samples = {"Saint-Étienne", "  Œuvre  d'Orient ", "Rue du 8-Mai-1945", "ÇA, c'est l'été!", ""};
+        for (String sample : samples) {
+            assertEquals(sample, AddressIndexBuilder.normalize(sample), OfflineGeocoder.normalize(sample));
+        }
+    }
+
+    private static Map<String, String> place(String type, String name) {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("place", type);
+        tags.put("name", name);
+        return tags;
+    }
+
+    private static Map<String, String> amenity(String name) {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("amenity", "school");
+        tags.put("name", name);
+        return tags;
+    }
+
+    /**
+     * Écrit l'index dans un fichier de région puis le relit comme l'application
+     */
+    private static OfflineGeocoder build(AddressIndexBuilder builder) throws IOException {
+        File file = File.createTempFile("geoc-test", ".rgn");
+        try {
+            try (RegionFileWriter region = new RegionFileWriter(file, 1)) {
+                builder.write(region.beginSection(AddressIndexBuilder.SECTION));
+                region.endSection();
+            }
+            RegionFile region = RegionFile.open(file);
+            return new OfflineGeocoder(region.requireSection(RegionFile.SECTION_ADDRESSES));
+        } finally {
+            file.delete();
+        }
+    }
+}
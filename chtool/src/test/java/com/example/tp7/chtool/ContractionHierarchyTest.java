@@ -0,0 +1,181 @@
+package com.example.tp7.chtool;
+
+import com.example.tp7.offline.ChGraph;
+import com.example.tp7.offline.ChRouter;
+import com.example.tp7.offline.RegionFile;
+import com.example.tp7.offline.RoadGraph;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Contraction hierarchies de bout en bout : réseau synthétique -> ContractionBuilder
+ * -> fichier de région -> ChRouter, comparé à un Dijkstra simple sur le RoadGraph
+ * Une erreur de témoin ou de déroulage ne plante pas : elle donne un chemin plus long
+ * ou incohérent, d'où la comparaison sur des paires aléatoires
+ */
+public class ContractionHierarchyTest {
+
+    private static final int SIZE = 25;
+    private static final int PAIRS = 300;
+
+    private static File regionFile;
+    private static RoadGraph graph;
+    private static ChRouter router;
+
+    @BeforeClass
+    public static void buildRegion() throws IOException {
+        RoadNetwork network = syntheticNetwork(new Random(42));
+        network.sortBySource();
+        ContractionBuilder.Hierarchy hierarchy = new ContractionBuilder(network).build();
+
+        regionFile = File.createTempFile("ch-test", ".rgn");
+        try (RegionFileWriter region = new RegionFileWriter(regionFile, 2)) {
+            GraphFileWriter.writeGraph(network, region.beginSection(GraphFileWriter.GRAPH_SECTION));
+            region.endSection();
+            GraphFileWriter.writeHierarchy(hierarchy, region.beginSection(GraphFileWriter.HIERARCHY_SECTION));
+            region.endSection();
+        }
+
+        RegionFile region = RegionFile.open(regionFile);
+        graph = new RoadGraph(region.requireSection(RegionFile.SECTION_GRAPH));
+        router = new ChRouter(new ChGraph(region.requireSection(RegionFile.SECTION_HIERARCHY)));
+    }
+
+    @AfterClass
+    public static void deleteRegion() {
+        if (regionFile != null) {
+            regionFile.delete();
+        }
+    }
+
+    /**
+     * Grille irrégulière : vitesses variées, quelques sens uniques, diagonales
+     * et voies manquantes, pour que des raccourcis et des témoins soient nécessaires
+     */
+    private static RoadNetwork syntheticNetwork(Random random) {
+        RoadNetwork network = new RoadNetwork();
+        int name = network.nameIndex("Rue");
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                network.addNode(48_800_000 + y * 1000 + random.nextInt(300),
+                        2_300_000 + x * 1500 + random.nextInt(300));
+            }
+        }
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                int node = y * SIZE + x;
+                if (x + 1 < SIZE) {
+                    connect(network, random, node, node + 1, name);
+                }
+                if (y + 1 < SIZE) {
+                    connect(network, random, node, node + SIZE, name);
+                }
+                if (x + 1 < SIZE && y + 1 < SIZE && random.nextInt(5) == 0) {
+                    connect(network, random, node, node + SIZE + 1, name);
+                }
+            }
+        }
+        return network;
+    }
+
+    private static void connect(RoadNetwork network, Random random, int a, int b, int name) {
+        int choice = random.nextInt(20);
+        if (choice == 0) {
+            return; // Voie absente
+        }
+        double length = 80 + random.nextInt(120);
+        double speed = (10 + random.nextInt(80)) / 3.6;
+        if (choice != 1) {
+            network.addEdge(a, b, length, speed, name);
+        }
+        if (choice != 2) {
+            network.addEdge(b, a, length, speed, name);
+        }
+    }
+
+    @Test
+    public void shortestPathsMatchDijkstra() {
+        Random random = new Random(7);
+        int nodeCount = graph.getNodeCount();
+        int reachable = 0;
+        for (int q = 0; q < PAIRS; q++) {
+            int from = random.nextInt(nodeCount);
+            int to = random.nextInt(nodeCount);
+            long expected = dijkstra(from, to);
+            int[] path = router.findPath(from, to, null);
+
+            if (expected < 0) {
+                assertNull("Chemin inattendu " + from + " -> " + to, path);
+                continue;
+            }
+            reachable++;
+            assertNotNull("Aucun chemin " + from + " -> " + to, path);
+            assertEquals("Durée " + from + " -> " + to, expected, pathTime(from, to, path));
+        }
+        assertTrue("Trop peu de paires reliées", reachable > PAIRS / 2);
+    }
+
+    @Test
+    public void samePointGivesEmptyPath() {
+        int[] path = router.findPath(10, 10, null);
+        assertNotNull(path);
+        assertEquals(0, path.length);
+    }
+
+    /**
+     * Durée d'un chemin (dixièmes de seconde) après vérification de sa continuité :
+     * chaque arc part du nœud où finit le précédent, le dernier arrive à to
+     */
+    private static long pathTime(int from, int to, int[] path) {
+        int node = from;
+        long time = 0;
+        for (int edge : path) {
+            assertTrue("Arc " + edge + " ne part pas de " + node,
+                    edge >= graph.getFirstEdge(node) && edge < graph.getEdgeEnd(node));
+            time += Math.round(graph.getEdgeTime(edge) * 10);
+            node = graph.getEdgeTarget(edge);
+        }
+        assertEquals("Chemin déroulé incomplet", to, node);
+        return time;
+    }
+
+    /**
+     * Dijkstra de référence sur le RoadGraph, durée en dixièmes de seconde, -1 si inaccessible
+     */
+    private static long dijkstra(int from, int to) {
+        long[] distance = new long[graph.getNodeCount()];
+        Arrays.fill(distance, Long.MAX_VALUE);
+        distance[from] = 0;
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        queue.add(new long[]{0, from});
+        while (!queue.isEmpty()) {
+            long[] entry = queue.poll();
+            int node = (int) entry[1];
+            if (entry[0] > distance[node]) {
+                continue;
+            }
+            if (node == to) {
+                return entry[0];
+            }
+            for (int edge = graph.getFirstEdge(node); edge < graph.getEdgeEnd(node); edge++) {
+                int next = graph.getEdgeTarget(edge);
+                long candidate = entry[0] + Math.round(graph.getEdgeTime(edge) * 10);
+                if (candidate < distance[next]) {
+                    distance[next] = candidate;
+                    queue.add(new long[]{candidate, next});
+                }
+            }
+        }
+        return -1;
+    }
+}
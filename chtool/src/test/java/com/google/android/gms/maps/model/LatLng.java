@@ -0,0 +1,15 @@
+package com.google.android.gms.maps.model;
+
+/**
+ * Remplaçant JVM de la classe Google Maps, pour relire l'index d'adresses
+ * (OfflineGeocoder) dans les tests de chtool
+ */
+public final class LatLng {
+    public final double latitude;
+    public final double longitude;
+
+    public LatLng(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+}
@@ -21,4 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "TP7"
 include(":app")
+include(":chtool")
  
\ No newline at end of file